@@ -0,0 +1,135 @@
+#!/usr/bin/env python3
+"""Compare a JMH JSON result file against a baseline and fail on regressions.
+
+Usage: jmh-compare.py BASELINE CURRENT [--tolerance 0.10]
+       jmh-compare.py --record-env BASELINE
+
+Regressions only fail the check when the run comes from the same environment as the baseline:
+same JDK and JVM version, same JVM arguments, same CPU count, and a baseline with at least MIN_FORKS forks.
+Otherwise they are printed as warnings. The CPU count is not part of JMH's JSON, so --record-env writes it
+next to the baseline (BASELINE with .env.json instead of .json); run it on the machine that recorded the baseline.
+"""
+import argparse
+import json
+import os
+import sys
+
+ALLOC_METRIC = "·gc.alloc.rate.norm"
+ALLOC_MARGIN_BYTES = 16
+MIN_FORKS = 3
+
+
+def load(path):
+    with open(path) as f:
+        results = json.load(f)
+    indexed = {}
+    for r in results:
+        key = (r["benchmark"], r.get("threads", 1), tuple(sorted((r.get("params") or {}).items())))
+        indexed[key] = r
+    return indexed
+
+
+def env_path(baseline_path):
+    root, _ = os.path.splitext(baseline_path)
+    return root + ".env.json"
+
+
+def record_env(baseline_path):
+    with open(env_path(baseline_path), "w") as f:
+        json.dump({"cpus": os.cpu_count()}, f)
+        f.write("\n")
+    return 0
+
+
+def jvm_of(results):
+    first = next(iter(results.values()))
+    return (first.get("jdkVersion"), first.get("vmVersion"), tuple(first.get("jvmArgs") or ()))
+
+
+def environment_mismatches(baseline_path, baseline, current):
+    """Reasons why the run is not comparable with the baseline; empty when it is."""
+    reasons = []
+    if jvm_of(baseline) != jvm_of(current):
+        reasons.append("JVM differs: baseline %s, run %s" % (jvm_of(baseline), jvm_of(current)))
+    try:
+        with open(env_path(baseline_path)) as f:
+            cpus = json.load(f).get("cpus")
+    except FileNotFoundError:
+        cpus = None
+    if cpus is None:
+        reasons.append("baseline CPU count unknown (no %s)" % env_path(baseline_path))
+    elif cpus != os.cpu_count():
+        reasons.append("CPU count differs: baseline %d, this machine %d" % (cpus, os.cpu_count()))
+    forks = min(r.get("forks", 1) for r in baseline.values())
+    if forks < MIN_FORKS:
+        reasons.append("baseline recorded with %d fork(s), at least %d needed" % (forks, MIN_FORKS))
+    return reasons
+
+
+def describe(key):
+    benchmark, threads, params = key
+    suffix = "".join(", %s=%s" % p for p in params)
+    return "%s [t=%d%s]" % (benchmark, threads, suffix)
+
+
+def main():
+    parser = argparse.ArgumentParser()
+    parser.add_argument("baseline")
+    parser.add_argument("current", nargs="?")
+    parser.add_argument("--tolerance", type=float, default=0.10)
+    parser.add_argument("--record-env", action="store_true")
+    args = parser.parse_args()
+    if args.record_env:
+        return record_env(args.baseline)
+    if args.current is None:
+        parser.error("CURRENT is required")
+
+    if not os.path.exists(args.baseline):
+        print("WARN  no baseline at %s, nothing is checked; record one on the reference build machine" % args.baseline)
+        return 0
+    baseline = load(args.baseline)
+    current = load(args.current)
+    if not baseline:
+        print("WARN  baseline %s is empty, nothing is checked" % args.baseline)
+        return 0
+    mismatches = environment_mismatches(args.baseline, baseline, current) if current else []
+    for reason in mismatches:
+        print("WARN  %s" % reason)
+    failures = 0
+    for key, result in sorted(current.items()):
+        base = baseline.get(key)
+        if base is None:
+            print("NEW   %s" % describe(key))
+            continue
+        score = result["primaryMetric"]["score"]
+        base_score = base["primaryMetric"]["score"]
+        unit = result["primaryMetric"]["scoreUnit"]
+        # 吞吐模式越大越好, 其他模式(平均时间等)越小越好
+        if result["mode"] == "thrpt":
+            regressed = score < base_score * (1 - args.tolerance)
+        else:
+            regressed = score > base_score * (1 + args.tolerance)
+        status = "SLOW " if regressed else "OK   "
+        failures += regressed
+        print("%s %s: %.3f -> %.3f %s" % (status, describe(key), base_score, score, unit))
+
+        alloc = result.get("secondaryMetrics", {}).get(ALLOC_METRIC)
+        base_alloc = base.get("secondaryMetrics", {}).get(ALLOC_METRIC)
+        if alloc and base_alloc:
+            limit = base_alloc["score"] * (1 + args.tolerance) + ALLOC_MARGIN_BYTES
+            if alloc["score"] > limit:
+                failures += 1
+                print("ALLOC %s: %.1f -> %.1f B/op" % (describe(key), base_alloc["score"], alloc["score"]))
+
+    if failures and mismatches:
+        print("%d regression(s) beyond %.0f%%, not failing: run and baseline environments differ"
+              % (failures, args.tolerance * 100))
+        return 0
+    if failures:
+        print("%d regression(s) beyond %.0f%%" % (failures, args.tolerance * 100))
+        return 1
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
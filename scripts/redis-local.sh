@@ -0,0 +1,112 @@
+#!/usr/bin/env bash
+# 在本机启动各种 redis 拓扑, 用于验证 spring.redis.mode 的各个取值
+# 用法: scripts/redis-local.sh standalone|master-replica|sentinel|cluster|stop
+# 依赖 PATH 中的 redis-server / redis-cli; 数据和日志放在 ${REDIS_LOCAL_DIR:-/tmp/redis-local}
+set -euo pipefail
+
+DIR="${REDIS_LOCAL_DIR:-/tmp/redis-local}"
+mkdir -p "$DIR"
+
+start_server() {
+    local port=$1
+    shift
+    mkdir -p "$DIR/$port"
+    redis-server --port "$port" --dir "$DIR/$port" --daemonize yes \
+        --logfile "$DIR/$port/redis.log" --pidfile "$DIR/$port/redis.pid" "$@"
+}
+
+wait_ready() {
+    local port=$1
+    for _ in $(seq 1 50); do
+        redis-cli -p "$port" ping >/dev/null 2>&1 && return 0
+        sleep 0.1
+    done
+    echo "redis on port $port did not start, see $DIR/$port/redis.log" >&2
+    exit 1
+}
+
+stop_all() {
+    for pidfile in "$DIR"/*/redis.pid; do
+        [ -f "$pidfile" ] || continue
+        kill "$(cat "$pidfile")" 2>/dev/null || true
+        rm -f "$pidfile"
+    done
+    rm -rf "$DIR"
+}
+
+case "${1:-}" in
+    standalone)
+        start_server 6379
+        wait_ready 6379
+        cat <<PROPS
+spring.redis.mode=standalone
+spring.redis.host=127.0.0.1
+spring.redis.port=6379
+spring.redis.password=
+PROPS
+        ;;
+    master-replica)
+        start_server 6379
+        wait_ready 6379
+        for port in 6380 6381; do
+            start_server "$port" --replicaof 127.0.0.1 6379
+            wait_ready "$port"
+        done
+        cat <<PROPS
+spring.redis.mode=master-replica
+spring.redis.host=127.0.0.1
+spring.redis.port=6379
+spring.redis.password=
+spring.redis.replica.nodes=127.0.0.1:6380,127.0.0.1:6381
+PROPS
+        ;;
+    sentinel)
+        start_server 6379
+        wait_ready 6379
+        start_server 6380 --replicaof 127.0.0.1 6379
+        wait_ready 6380
+        for port in 26379 26380 26381; do
+            mkdir -p "$DIR/$port"
+            cat > "$DIR/$port/sentinel.conf" <<CONF
+port $port
+dir $DIR/$port
+daemonize yes
+logfile $DIR/$port/redis.log
+pidfile $DIR/$port/redis.pid
+sentinel monitor mymaster 127.0.0.1 6379 2
+sentinel down-after-milliseconds mymaster 5000
+sentinel failover-timeout mymaster 10000
+CONF
+            redis-server "$DIR/$port/sentinel.conf" --sentinel
+            wait_ready "$port"
+        done
+        cat <<PROPS
+spring.redis.mode=sentinel
+spring.redis.password=
+spring.redis.sentinel.master=mymaster
+spring.redis.sentinel.nodes=127.0.0.1:26379,127.0.0.1:26380,127.0.0.1:26381
+PROPS
+        ;;
+    cluster)
+        nodes=()
+        for port in 7000 7001 7002 7003 7004 7005; do
+            start_server "$port" --cluster-enabled yes --cluster-config-file "$DIR/$port/nodes.conf" --appendonly no
+            wait_ready "$port"
+            nodes+=("127.0.0.1:$port")
+        done
+        redis-cli --cluster create "${nodes[@]}" --cluster-replicas 1 --cluster-yes >/dev/null
+        cat <<PROPS
+spring.redis.mode=cluster
+spring.redis.password=
+spring.redis.cluster.nodes=127.0.0.1:7000,127.0.0.1:7001,127.0.0.1:7002
+spring.redis.cluster.max-redirects=5
+PROPS
+        ;;
+    stop)
+        stop_all
+        ;;
+    *)
+        echo "usage: $0 standalone|master-replica|sentinel|cluster|stop" >&2
+        exit 1
+        ;;
+esac
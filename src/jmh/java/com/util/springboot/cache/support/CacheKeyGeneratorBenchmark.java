@@ -0,0 +1,89 @@
+package com.util.springboot.cache.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比原来直接拼接 toString 的 lambda 与 {@link CacheKeyGenerator};
+ * 建议同时加 -prof gc 观察每次调用的分配字节数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyGeneratorBenchmark {
+
+    private final KeyGenerator legacy = (target, method, params) -> {
+        StringBuilder sb = new StringBuilder();
+        sb.append(target.getClass().getName());
+        sb.append(method.getName());
+        for (Object obj : params) {
+            sb.append(obj.toString());
+        }
+        return sb.toString();
+    };
+
+    private final KeyGenerator generator = new CacheKeyGenerator();
+
+    private final Target target = new Target();
+
+    private Method noArgs;
+
+    private Method twoArgs;
+
+    private final Object[] empty = new Object[0];
+
+    private final Object[] args = {"zhangsan", 42};
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        noArgs = Target.class.getMethod("list");
+        twoArgs = Target.class.getMethod("find", String.class, Integer.class);
+    }
+
+    @Benchmark
+    public Object legacyNoArgs() {
+        return legacy.generate(target, noArgs, empty);
+    }
+
+    @Benchmark
+    public Object generatorNoArgs() {
+        return generator.generate(target, noArgs, empty);
+    }
+
+    @Benchmark
+    public Object legacyTwoArgs() {
+        return legacy.generate(target, twoArgs, args);
+    }
+
+    @Benchmark
+    public Object generatorTwoArgs() {
+        return generator.generate(target, twoArgs, args);
+    }
+
+    public static class Target {
+
+        public String list() {
+            return null;
+        }
+
+        public String find(String userName, Integer age) {
+            return null;
+        }
+    }
+
+}
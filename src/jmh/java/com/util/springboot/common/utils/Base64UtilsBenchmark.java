@@ -0,0 +1,61 @@
+package com.util.springboot.common.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base64Utils 编解码 64B 与 4KB 两种大小的数据
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Base64UtilsBenchmark {
+
+    private final byte[] small = random(64);
+
+    private final byte[] large = random(4096);
+
+    private final byte[] smallEncoded = Base64Utils.encode(small);
+
+    private final byte[] largeEncoded = Base64Utils.encode(large);
+
+    @Benchmark
+    public byte[] encodeSmall() {
+        return Base64Utils.encode(small);
+    }
+
+    @Benchmark
+    public byte[] encodeLarge() {
+        return Base64Utils.encode(large);
+    }
+
+    @Benchmark
+    public byte[] decodeSmall() {
+        return Base64Utils.decode(smallEncoded);
+    }
+
+    @Benchmark
+    public byte[] decodeLarge() {
+        return Base64Utils.decode(largeEncoded);
+    }
+
+    private static byte[] random(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+
+}
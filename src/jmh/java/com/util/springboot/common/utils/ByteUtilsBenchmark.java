@@ -0,0 +1,58 @@
+package com.util.springboot.common.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ByteUtils 的转换与截取, 输入为 256 字节
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteUtilsBenchmark {
+
+    private final byte[] bytes = new byte[256];
+
+    {
+        new Random(42).nextBytes(bytes);
+    }
+
+    @Benchmark
+    public String getHex() {
+        return ByteUtils.getHex(bytes);
+    }
+
+    @Benchmark
+    public String byteToBit() {
+        return ByteUtils.byteToBit(bytes[0], bytes[1], bytes[2], bytes[3]);
+    }
+
+    @Benchmark
+    public byte[] cutOut() {
+        return ByteUtils.cutOut(bytes, 16, 128);
+    }
+
+    @Benchmark
+    public byte[] subBytes() {
+        return ByteUtils.subBytes(bytes, 16, 128);
+    }
+
+    @Benchmark
+    public byte[] valueOfInt() {
+        return ByteUtils.valueOf(0x12345678);
+    }
+
+}
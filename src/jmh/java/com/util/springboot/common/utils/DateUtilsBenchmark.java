@@ -0,0 +1,50 @@
+package com.util.springboot.common.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DateUtils 的格式化与解析; 每次调用都 new SimpleDateFormat, 且结果经过静态字段中转,
+ * 多线程(-t 8)下除了吞吐还应关注结果是否被其他线程覆盖
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateUtilsBenchmark {
+
+    private final Date date = new Date(1480060800000L);
+
+    @Benchmark
+    public String format() {
+        return DateUtils.format(date, DateUtils.DEFAULT_DATETIME_FORMAT_PATTERN);
+    }
+
+    @Benchmark
+    public Date parseDate() {
+        return DateUtils.parseDate("2016-11-25");
+    }
+
+    @Benchmark
+    public Date addDate() {
+        return DateUtils.addDate(date, 7);
+    }
+
+    @Benchmark
+    public String getTimeInterval() {
+        return DateUtils.getTimeInterval(date);
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.util.springboot.common.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EncryptUtils 的摘要与 base64; 输入为一个典型长度的口令和一段 1KB 文本
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncryptUtilsBenchmark {
+
+    private final String password = "zhangsan@123456";
+
+    private final String text = new String(new char[1024]).replace('\0', 'x');
+
+    private final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+    private final String encoded = EncryptUtils.base64Encode(bytes);
+
+    @Benchmark
+    public String md5Short() {
+        return EncryptUtils.md5(password);
+    }
+
+    @Benchmark
+    public String md5Long() {
+        return EncryptUtils.md5(text);
+    }
+
+    @Benchmark
+    public String sha() {
+        return EncryptUtils.sha(password);
+    }
+
+    @Benchmark
+    public String base64Encode() {
+        return EncryptUtils.base64Encode(bytes);
+    }
+
+    @Benchmark
+    public byte[] base64Decode() {
+        return EncryptUtils.base64Decode(encoded);
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.util.springboot.common.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比原来 synchronized + 空转等待的实现与 CAS 实现在 1/8/64 个线程下每秒生成的 id 数.
+ * 真实时钟下单机上限为每毫秒 4096 个, 即约 4.1M ops/s, 两者都会被该上限卡住, 测不出竞争开销;
+ * 因此 legacy / cas / batch 方法使用每微秒前进一毫秒的 FastClock, 上限远高于实际吞吐, 结果反映的是竞争开销.
+ * capped 方法使用系统时钟, 用于确认序列号用完后等待下一毫秒时不损失吞吐, 两者都应接近 4.1M ops/s.
+ * batch 方法每次预留 64 个, 按 id 数计的吞吐为结果 * 64.
+ * 各方法已用 @Threads 指定线程数, 运行时不要在 jmh.args 中加 -t, 否则会被覆盖
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdWorkerBenchmark {
+
+    private static final Clock FAST_CLOCK = new FastClock();
+
+    private final SynchronizedIdWorker legacy = new SynchronizedIdWorker(1, 1, FAST_CLOCK);
+
+    private final IdWorker worker = new IdWorker(1, 1, FAST_CLOCK, 0L);
+
+    private final SynchronizedIdWorker cappedLegacy = new SynchronizedIdWorker(1, 1, Clock.systemUTC());
+
+    private final IdWorker cappedWorker = new IdWorker(1, 1);
+
+    @Benchmark
+    @Threads(1)
+    public long legacy1() {
+        return legacy.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long legacy8() {
+        return legacy.nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long legacy64() {
+        return legacy.nextId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long cas1() {
+        return worker.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long cas8() {
+        return worker.nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long cas64() {
+        return worker.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long[] batch8() {
+        return worker.nextIds(64);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long[] batch64() {
+        return worker.nextIds(64);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long cappedLegacy1() {
+        return cappedLegacy.nextId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long cappedCas1() {
+        return cappedWorker.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long cappedLegacy8() {
+        return cappedLegacy.nextId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long cappedCas8() {
+        return cappedWorker.nextId();
+    }
+
+    /**
+     * 每微秒前进一毫秒的时钟, 单调递增, 起点为创建时的系统时间
+     */
+    static final class FastClock extends Clock {
+
+        private final long originMillis = System.currentTimeMillis();
+
+        private final long originNanos = System.nanoTime();
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return originMillis + (System.nanoTime() - originNanos) / 1000L;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis());
+        }
+
+    }
+
+    /**
+     * 改造前的 IdWorker.nextId, 仅保留生成逻辑作为基线, 时间来源改为 Clock 以便与 CAS 实现使用同一时钟
+     */
+    static class SynchronizedIdWorker {
+
+        private final long twepoch = 1288834974657L;
+
+        private final long sequenceBits = 12L;
+
+        private final long workerIdShift = sequenceBits;
+
+        private final long datacenterIdShift = sequenceBits + 5L;
+
+        private final long timestampLeftShift = sequenceBits + 10L;
+
+        private final long sequenceMask = -1L ^ (-1L << sequenceBits);
+
+        private final long workerId;
+
+        private final long datacenterId;
+
+        private final Clock clock;
+
+        private long sequence = 0L;
+
+        private long lastTimestamp = -1L;
+
+        SynchronizedIdWorker(long workerId, long datacenterId, Clock clock) {
+            this.workerId = workerId;
+            this.datacenterId = datacenterId;
+            this.clock = clock;
+        }
+
+        synchronized long nextId() {
+            long timestamp = clock.millis();
+            if (timestamp < lastTimestamp) {
+                throw new RuntimeException("Clock moved backwards");
+            }
+            if (lastTimestamp == timestamp) {
+                sequence = (sequence + 1) & sequenceMask;
+                if (sequence == 0) {
+                    while (timestamp <= lastTimestamp) {
+                        timestamp = clock.millis();
+                    }
+                }
+            } else {
+                sequence = 0L;
+            }
+            lastTimestamp = timestamp;
+            return ((timestamp - twepoch) << timestampLeftShift) | (datacenterId << datacenterIdShift)
+                    | (workerId << workerIdShift) | sequence;
+        }
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.util.springboot.common.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RegexUtils 的校验方法; 均通过 String.matches 实现, 每次调用都会重新编译正则
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RegexUtilsBenchmark {
+
+    @Benchmark
+    public boolean isEmail() {
+        return RegexUtils.isEmail("zhangsan@example.com");
+    }
+
+    @Benchmark
+    public boolean isIp() {
+        return RegexUtils.isIp("192.168.110.177");
+    }
+
+    @Benchmark
+    public boolean isIdCard() {
+        return RegexUtils.isIdCard("11010519491231002X");
+    }
+
+    @Benchmark
+    public boolean isURL() {
+        return RegexUtils.isURL("http://www.example.com/demo/user/listAll");
+    }
+
+    @Benchmark
+    public boolean isPositiveInteger() {
+        return RegexUtils.isPositiveInteger("1234567890");
+    }
+
+    @Benchmark
+    public String checkInputPro() {
+        return RegexUtils.checkInputPro("abc 123 中文, def!");
+    }
+
+}
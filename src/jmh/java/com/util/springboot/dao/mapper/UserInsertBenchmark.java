@@ -0,0 +1,122 @@
+package com.util.springboot.dao.mapper;
+
+import com.util.springboot.model.User;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比逐行 insertSelective(每行再查一次 LAST_INSERT_ID)与分块多行 insertBatch 写入 rows 个用户的耗时;
+ * 使用 mysql 模式的 H2 内存库代替 mysql, 没有网络往返, 真实环境下两者差距会更大
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserInsertBenchmark {
+
+    /** 与 UserServiceImpl 默认的 user.batch-insert.chunk-size 一致 */
+    private static final int CHUNK_SIZE = 500;
+
+    @Param({"100", "1000"})
+    private int rows;
+
+    private PooledDataSource dataSource;
+
+    private SqlSessionFactory sessionFactory;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataSource = new PooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists user (id int auto_increment primary key, "
+                    + "user_name varchar(64), password varchar(64), age int, birthday timestamp, nike_name varchar(64))");
+        }
+        Configuration configuration = new Configuration(new Environment("bench", new JdbcTransactionFactory(), dataSource));
+        configuration.addMapper(UserMapper.class);
+        sessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("truncate table user");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.forceCloseAll();
+    }
+
+    @Benchmark
+    public int perRow() {
+        List<User> users = users();
+        try (SqlSession session = sessionFactory.openSession()) {
+            UserMapper mapper = session.getMapper(UserMapper.class);
+            int inserted = 0;
+            for (User user : users) {
+                inserted += mapper.insertSelective(user);
+            }
+            session.commit();
+            return inserted;
+        }
+    }
+
+    @Benchmark
+    public int batch() {
+        List<User> users = users();
+        try (SqlSession session = sessionFactory.openSession()) {
+            UserMapper mapper = session.getMapper(UserMapper.class);
+            int inserted = 0;
+            for (int from = 0; from < users.size(); from += CHUNK_SIZE) {
+                inserted += mapper.insertBatch(users.subList(from, Math.min(from + CHUNK_SIZE, users.size())));
+            }
+            session.commit();
+            return inserted;
+        }
+    }
+
+    private List<User> users() {
+        List<User> users = new ArrayList<>(rows);
+        Date birthday = new Date();
+        for (int i = 0; i < rows; i++) {
+            User user = new User();
+            user.setUserName("user" + i);
+            user.setPassword("password" + i);
+            user.setAge(20 + i % 40);
+            user.setBirthday(birthday);
+            user.setNikeName("nick" + i);
+            users.add(user);
+        }
+        return users;
+    }
+
+}
@@ -0,0 +1,186 @@
+package com.util.springboot.cache.local;
+
+import com.util.springboot.cache.redis.RedisUtil;
+import com.util.springboot.dao.mapper.RoleMapper;
+import com.util.springboot.model.Role;
+import com.util.springboot.model.RoleExample;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @description 角色表的进程内只读缓存;
+ * role 表很小且极少变化, 首次读取时整表加载, 之后按 id / code 查询都是一次 HashMap 读取.
+ * 通过 RoleMapper 写入时由 {@link RoleCatalogInvalidationAspect} 触发失效,
+ * 并经 redis 发布/订阅广播给其他节点; 广播丢失时靠最大存活时间兜底重新加载
+ */
+@Component
+public class RoleCatalogCache implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RoleCatalogCache.class);
+
+    /** 失效广播频道 */
+    public static final String INVALIDATE_CHANNEL = "cache:invalidate:role";
+
+    /** 快照最大存活时间, 防止错过失效消息后一直使用旧数据 */
+    private static final long MAX_AGE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    @Autowired
+    private RoleMapper roleMapper;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * 失效代数, 每次失效加一; 快照记录开始加载时的代数, 与当前代数不同即视为失效,
+     * 加载期间发生的失效不会被随后发布的快照覆盖
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void subscribe() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 按 id 查询角色
+     *
+     * @param id 角色id
+     * @return Role, 不存在时返回 null
+     */
+    public Role getById(Integer id) {
+        return id == null ? null : current().byId.get(id);
+    }
+
+    /**
+     * 按 code 查询角色
+     *
+     * @param code 角色编码
+     * @return Role, 不存在时返回 null
+     */
+    public Role getByCode(String code) {
+        return code == null ? null : current().byCode.get(code);
+    }
+
+    /**
+     * 按 id 批量查询角色, 忽略不存在的 id
+     *
+     * @param ids 角色id集合
+     * @return 角色列表, 顺序与 ids 一致
+     */
+    public List<Role> getByIds(Collection<Integer> ids) {
+        Map<Integer, Role> byId = current().byId;
+        List<Role> roles = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Role role = byId.get(id);
+            if (role != null) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+
+    /**
+     * 清空本节点缓存并通知其他节点
+     */
+    public void invalidate() {
+        invalidateLocal();
+        try {
+            redisUtil.publish(INVALIDATE_CHANNEL, "all");
+        } catch (Exception e) {
+            log.warn("ZGH20010: publish role cache invalidation failed, other nodes reload after max age", e);
+        }
+    }
+
+    /**
+     * 只清空本节点缓存, 下次读取时重新加载
+     */
+    public void invalidateLocal() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        log.debug("ZGH20020: role cache invalidated by broadcast");
+        invalidateLocal();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (isValid(current)) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (!isValid(current)) {
+                current = load(generation.get());
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private boolean isValid(Snapshot current) {
+        return current != null && current.generation == generation.get() && !current.isExpired();
+    }
+
+    private Snapshot load(long loadingGeneration) {
+        List<Role> roles = roleMapper.selectByExample(new RoleExample());
+        Map<Integer, Role> byId = new HashMap<>(roles.size() * 2);
+        Map<String, Role> byCode = new HashMap<>(roles.size() * 2);
+        for (Role role : roles) {
+            byId.put(role.getId(), role);
+            if (role.getCode() != null) {
+                byCode.put(role.getCode(), role);
+            }
+        }
+        log.info("ZGH20030: role cache loaded, size = {}", roles.size());
+        return new Snapshot(byId, byCode, loadingGeneration);
+    }
+
+    /**
+     * 不可变的整表快照, 替换引用即完成刷新, 读取无需加锁
+     */
+    private static final class Snapshot {
+
+        private final Map<Integer, Role> byId;
+
+        private final Map<String, Role> byCode;
+
+        private final long generation;
+
+        private final long loadedAt = System.nanoTime();
+
+        private Snapshot(Map<Integer, Role> byId, Map<String, Role> byCode, long generation) {
+            this.byId = Collections.unmodifiableMap(byId);
+            this.byCode = Collections.unmodifiableMap(byCode);
+            this.generation = generation;
+        }
+
+        private boolean isExpired() {
+            return System.nanoTime() - loadedAt > MAX_AGE_NANOS;
+        }
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.util.springboot.cache.local;
+
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * @description 通过 RoleMapper 的写操作(insert/update/delete)成功后使角色缓存失效;
+ * 在事务中执行时推迟到事务提交之后, 避免其他节点在提交前重新加载到旧数据
+ */
+@Aspect
+@Component
+public class RoleCatalogInvalidationAspect {
+
+    @Autowired
+    private RoleCatalogCache roleCatalogCache;
+
+    @Pointcut("execution(* com.util.springboot.dao.mapper.RoleMapper.insert*(..))"
+            + " || execution(* com.util.springboot.dao.mapper.RoleMapper.update*(..))"
+            + " || execution(* com.util.springboot.dao.mapper.RoleMapper.delete*(..))")
+    public void roleWrite() {
+    }
+
+    @AfterReturning("roleWrite()")
+    public void afterRoleWrite() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    roleCatalogCache.invalidate();
+                }
+            });
+        } else {
+            roleCatalogCache.invalidate();
+        }
+    }
+
+}
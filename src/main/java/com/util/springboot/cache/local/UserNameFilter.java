@@ -0,0 +1,262 @@
+package com.util.springboot.cache.local;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.util.springboot.cache.redis.RedisUtil;
+import com.util.springboot.dao.mapper.UserMapper;
+import com.util.springboot.limit.ClientAddressResolver;
+import com.util.springboot.limit.LocalTokenBucket;
+import com.util.springboot.limit.RateLimitSettings;
+import com.util.springboot.model.UserExample;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @description 已存在用户名的布隆过滤器, 放在按用户名查询用户之前, 只作为限速依据而不是存在性判断:
+ * 过滤器判定不存在的用户名(撞库、输错用户名)按客户端地址各自限速后仍查询数据库, 超出速率时由调用方拒绝请求,
+ * 单个客户端撞库不会占用其他客户端的额度.
+ * 本节点新增用户时写入过滤器并经 redis 发布/订阅广播给其他节点; 广播丢失或绕过 UserService 直接写库时过滤器会漏掉已存在的用户名,
+ * 这类用户名仍会查到, 查到后补入过滤器, 不会被当作不存在.
+ * 首次构建完成前所有用户名都视为可能存在
+ */
+@Component
+public class UserNameFilter implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(UserNameFilter.class);
+
+    /** 新增用户名广播频道, 消息内容为换行分隔的用户名 */
+    public static final String ADD_CHANNEL = "cache:bloom:user-name";
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /** 复用限流配置中的受信代理解析客户端地址 */
+    @Autowired
+    private RateLimitSettings rateLimitSettings;
+
+    @Value("${user.name-filter.enabled:true}")
+    private boolean enabled;
+
+    /** 过滤器容量下限, 实际容量取该值与当前用户数 2 倍中的较大者 */
+    @Value("${user.name-filter.expected-insertions:100000}")
+    private long minExpectedInsertions;
+
+    /** 达到容量时的误判率 */
+    @Value("${user.name-filter.fpp:0.01}")
+    private double fpp;
+
+    /** 每个客户端地址对过滤器判定不存在的查询允许的突发数量 */
+    @Value("${user.name-filter.miss-capacity:20}")
+    private long missCapacity;
+
+    /** 每个客户端地址对过滤器判定不存在的查询每秒允许的数量 */
+    @Value("${user.name-filter.miss-permits-per-second:2}")
+    private double missPermitsPerSecond;
+
+    /** 本节点最多保留多少个客户端的令牌桶, 超出时淘汰最久未用的 */
+    @Value("${user.name-filter.miss-max-clients:100000}")
+    private long missMaxClients;
+
+    private Cache<String, LocalTokenBucket> missBuckets;
+
+    private ClientAddressResolver clientAddressResolver;
+
+    /**
+     * guava 18 的 BloomFilter 并发写入会丢位, 丢位即漏判已存在的用户名, 写入和替换在 this 上同步;
+     * 读取不加锁, 与写入并发时最多漏看正在写入的用户名, 这类用户名按限速查库, 查到后再补入
+     */
+    private volatile BloomFilter<CharSequence> filter;
+
+    /** 重建期间新增的用户名, 新过滤器构建完成后补入 */
+    private List<String> pending;
+
+    /** 过滤器判定不存在、因超出速率被拒绝的查询数, 每次重建时输出并清零 */
+    private final LongAdder rejected = new LongAdder();
+
+    /** 过滤器判定不存在但数据库中存在的用户名数, 持续出现说明广播丢失或有绕过 UserService 的写入 */
+    private final LongAdder missed = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        clientAddressResolver = new ClientAddressResolver(rateLimitSettings.getTrustedProxies());
+        missBuckets = Caffeine.newBuilder()
+                .maximumSize(missMaxClients)
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(ADD_CHANNEL));
+    }
+
+    /**
+     * 是否查询数据库: 过滤器判定可能存在时放行; 判定不存在时按当前请求的客户端地址限速放行, 超出速率返回 false.
+     * 返回 false 不代表用户名不存在, 调用方应拒绝请求而不是返回用户不存在
+     *
+     * @param userName 用户名
+     * @return 是否查询数据库
+     */
+    public boolean tryAdmit(String userName) {
+        if (!enabled || mightContain(userName)) {
+            return true;
+        }
+        LocalTokenBucket bucket = missBuckets.get(clientOf(), client -> new LocalTokenBucket(missCapacity, missPermitsPerSecond));
+        if (bucket.tryAcquire(1)) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * 数据库中查到该用户名后调用; 过滤器漏掉的用户名补入本节点过滤器
+     *
+     * @param userName 用户名
+     */
+    public void found(String userName) {
+        if (!enabled || mightContain(userName)) {
+            return;
+        }
+        missed.increment();
+        addLocal(Collections.singletonList(userName));
+    }
+
+    /**
+     * 写入本节点过滤器并通知其他节点
+     *
+     * @param userNames 新增的用户名
+     */
+    public void add(Collection<String> userNames) {
+        if (!enabled) {
+            return;
+        }
+        List<String> added = new ArrayList<>(userNames.size());
+        for (String userName : userNames) {
+            if (userName != null) {
+                added.add(userName);
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+        addLocal(added);
+        try {
+            redisUtil.publish(ADD_CHANNEL, String.join("\n", added));
+        } catch (Exception e) {
+            log.warn("ZGH20610: publish new user names failed, other nodes catch up on next rebuild", e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        addLocal(Arrays.asList(new String(message.getBody(), StandardCharsets.UTF_8).split("\n")));
+    }
+
+    /**
+     * 流式读取全部用户名重建过滤器, 按当前用户数重新确定容量; 失败时保留旧过滤器
+     */
+    @Scheduled(fixedDelayString = "${user.name-filter.rebuild-interval:600000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            pending = new ArrayList<>();
+        }
+        try {
+            int expected = (int) Math.min(Integer.MAX_VALUE,
+                    Math.max(minExpectedInsertions, userMapper.countByExample(new UserExample()) * 2));
+            BloomFilter<CharSequence> next = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expected, fpp);
+            UserExample userExample = new UserExample().selectColumns(UserExample.Column.userName);
+            userMapper.streamByExample(userExample, context -> {
+                String userName = context.getResultObject().getUserName();
+                if (userName != null) {
+                    next.put(key(userName));
+                }
+            });
+            synchronized (this) {
+                for (String userName : pending) {
+                    next.put(key(userName));
+                }
+                filter = next;
+            }
+            log.info("ZGH20620: user name filter rebuilt, expectedInsertions = {}, cost = {}ms, rejected since last = {}, missed since last = {}",
+                    expected, System.currentTimeMillis() - start, rejected.sumThenReset(), missed.sumThenReset());
+        } catch (RuntimeException e) {
+            log.warn("ZGH20630: user name filter rebuild failed, keep previous filter", e);
+        } finally {
+            synchronized (this) {
+                pending = null;
+            }
+        }
+    }
+
+    private boolean mightContain(String userName) {
+        BloomFilter<CharSequence> current = filter;
+        return current == null || current.mightContain(key(userName));
+    }
+
+    private synchronized void addLocal(Collection<String> userNames) {
+        BloomFilter<CharSequence> current = filter;
+        for (String userName : userNames) {
+            if (current != null) {
+                current.put(key(userName));
+            }
+            if (pending != null) {
+                pending.add(userName);
+            }
+        }
+    }
+
+    /**
+     * 当前请求的客户端地址, 不在 web 请求中时所有调用共用一个令牌桶
+     */
+    private String clientOf() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return "*";
+        }
+        return clientAddressResolver.resolve(((ServletRequestAttributes) attributes).getRequest());
+    }
+
+    /**
+     * mysql 默认排序规则不区分大小写且忽略尾部空格, 过滤器按同样规则归一化, 否则会漏判数据库能查到的用户名;
+     * 重音等其他等价规则不做归一化, 这类用户名只能按原样登录
+     */
+    private static String key(String userName) {
+        int end = userName.length();
+        while (end > 0 && userName.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return userName.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -0,0 +1,199 @@
+package com.util.springboot.cache.redis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisNode;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.JedisSentinelPool;
+import redis.clients.util.Pool;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @description 带连接池调优的 jedis 连接工厂, 支持单机、哨兵和集群模式:
+ * 连接超时与读超时分开设置, 启动时预热 min-idle 个连接, 定时输出连接池借用等待统计;
+ * 连接池耗尽时计数并告警, 而不是表现为无规律的延迟
+ */
+public class PooledJedisConnectionFactory extends JedisConnectionFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(PooledJedisConnectionFactory.class);
+
+    private final int connectTimeout;
+
+    private final int readTimeout;
+
+    private final boolean warmUp;
+
+    /** CLIENT SETNAME 设置的连接名, 为空时不设置; 父类在 spring-data-redis 1.7 中没有该属性 */
+    private String clientName;
+
+    private final LongAdder borrowFailures = new LongAdder();
+
+    /** 单机和哨兵模式下的连接池; 集群模式由 JedisCluster 按节点管理连接池, 此处为 null */
+    private volatile Pool<Jedis> pool;
+
+    /**
+     * 单机模式
+     *
+     * @param poolConfig 连接池配置
+     * @param connectTimeout 连接超时(毫秒)
+     * @param readTimeout 读超时(毫秒)
+     * @param warmUp 启动时是否预热 min-idle 个连接
+     */
+    public PooledJedisConnectionFactory(JedisPoolConfig poolConfig, int connectTimeout, int readTimeout, boolean warmUp) {
+        super(poolConfig);
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.warmUp = warmUp;
+        setTimeout(readTimeout);
+    }
+
+    /**
+     * 哨兵模式, 连接当前 master
+     *
+     * @param sentinelConfig 哨兵配置
+     * @param poolConfig 连接池配置
+     * @param connectTimeout 连接超时(毫秒)
+     * @param readTimeout 读超时(毫秒)
+     * @param warmUp 启动时是否预热 min-idle 个连接
+     */
+    public PooledJedisConnectionFactory(RedisSentinelConfiguration sentinelConfig, JedisPoolConfig poolConfig,
+                                        int connectTimeout, int readTimeout, boolean warmUp) {
+        super(sentinelConfig, poolConfig);
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.warmUp = warmUp;
+        setTimeout(readTimeout);
+    }
+
+    /**
+     * 集群模式, 每个节点一个连接池, 连接超时与读超时只能统一设置为读超时
+     *
+     * @param clusterConfig 集群配置
+     * @param poolConfig 每个节点的连接池配置
+     * @param readTimeout 读超时(毫秒)
+     */
+    public PooledJedisConnectionFactory(RedisClusterConfiguration clusterConfig, JedisPoolConfig poolConfig, int readTimeout) {
+        super(clusterConfig, poolConfig);
+        this.connectTimeout = readTimeout;
+        this.readTimeout = readTimeout;
+        this.warmUp = false;
+        setTimeout(readTimeout);
+    }
+
+    public String getClientName() {
+        return clientName;
+    }
+
+    public void setClientName(String clientName) {
+        this.clientName = clientName;
+    }
+
+    @Override
+    protected Pool<Jedis> createRedisPool() {
+        pool = new JedisPool(getPoolConfig(), getHostName(), getPort(), connectTimeout, readTimeout,
+                getPassword(), getDatabase(), getClientName());
+        return pool;
+    }
+
+    @Override
+    protected Pool<Jedis> createRedisSentinelPool(RedisSentinelConfiguration config) {
+        Set<String> sentinels = new LinkedHashSet<>();
+        for (RedisNode node : config.getSentinels()) {
+            sentinels.add(node.asString());
+        }
+        pool = new JedisSentinelPool(config.getMaster().getName(), sentinels, getPoolConfig(),
+                connectTimeout, readTimeout, getPassword(), getDatabase(), getClientName());
+        return pool;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        if (warmUp && pool != null) {
+            warmUp();
+        }
+    }
+
+    @Override
+    public RedisConnection getConnection() throws DataAccessException {
+        try {
+            return super.getConnection();
+        } catch (DataAccessException e) {
+            borrowFailures.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * 借出再归还 min-idle 个连接, 让第一批请求不用现建连接
+     */
+    private void warmUp() {
+        int count = getPoolConfig().getMinIdle();
+        List<Jedis> connections = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                connections.add(pool.getResource());
+            }
+            log.info("ZGH20310: redis pool warmed up, connections = {}", connections.size());
+        } catch (Exception e) {
+            log.warn("ZGH20320: redis pool warm up failed after {} connections", connections.size(), e);
+        } finally {
+            connections.forEach(Jedis::close);
+        }
+    }
+
+    public int getNumActive() {
+        return pool == null ? 0 : pool.getNumActive();
+    }
+
+    public int getNumIdle() {
+        return pool == null ? 0 : pool.getNumIdle();
+    }
+
+    public int getNumWaiters() {
+        return pool == null ? 0 : pool.getNumWaiters();
+    }
+
+    public long getMeanBorrowWaitTimeMillis() {
+        return pool == null ? 0 : pool.getMeanBorrowWaitTimeMillis();
+    }
+
+    public long getMaxBorrowWaitTimeMillis() {
+        return pool == null ? 0 : pool.getMaxBorrowWaitTimeMillis();
+    }
+
+    public long getBorrowFailures() {
+        return borrowFailures.sum();
+    }
+
+    @Scheduled(fixedDelayString = "${spring.redis.pool.metrics-interval:60000}")
+    public void logPoolStats() {
+        if (pool == null) {
+            return;
+        }
+        int waiters = getNumWaiters();
+        long failures = getBorrowFailures();
+        String stats = "active=" + getNumActive() + ", idle=" + getNumIdle() + ", waiters=" + waiters
+                + ", meanBorrowWait=" + getMeanBorrowWaitTimeMillis() + "ms, maxBorrowWait=" + getMaxBorrowWaitTimeMillis()
+                + "ms, borrowFailures=" + failures;
+        if (waiters > 0 || failures > 0) {
+            log.warn("ZGH20330: redis pool under pressure, {}", stats);
+        } else {
+            log.info("ZGH20340: redis pool {}", stats);
+        }
+    }
+
+}
@@ -3,7 +3,13 @@ package com.util.springboot.cache.redis;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.util.springboot.cache.support.BoundedRedisCacheManager;
+import com.util.springboot.cache.support.CacheKeyGenerator;
+import com.util.springboot.cache.support.CacheSettings;
+import com.util.springboot.cache.support.TwoLevelCacheManager;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.cache.annotation.EnableCaching;
@@ -12,11 +18,20 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.util.StringUtils;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * redis 缓存配置;
@@ -31,57 +46,179 @@ import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 @PropertySource(value = "classpath:/cache/redis.properties")
 public class RedisCacheConfig extends CachingConfigurerSupport {
 
+    public static final String MODE_MASTER_REPLICA = "master-replica";
+
+    public static final String MODE_SENTINEL = "sentinel";
+
+    public static final String MODE_CLUSTER = "cluster";
+
     @Value("${spring.redis.host}")
     private String host;
 
     @Value("${spring.redis.port}")
     private int port;
 
+    @Value("${spring.redis.database:0}")
+    private int database;
+
+    /** 读超时(毫秒) */
     @Value("${spring.redis.timeout}")
     private int timeout;
 
+    /** 连接超时(毫秒) */
+    @Value("${spring.redis.connect-timeout:2000}")
+    private int connectTimeout;
+
     @Value("${spring.redis.password}")
     private String password;
 
+    /** 连接名, 便于在 CLIENT LIST 中区分应用 */
+    @Value("${spring.redis.client-name:}")
+    private String clientName;
+
+    @Value("${spring.redis.pool.max-active:8}")
+    private int maxActive;
+
+    @Value("${spring.redis.pool.max-idle:8}")
+    private int maxIdle;
+
+    @Value("${spring.redis.pool.min-idle:0}")
+    private int minIdle;
+
+    @Value("${spring.redis.pool.max-wait:-1}")
+    private long maxWait;
+
+    @Value("${spring.redis.pool.time-between-eviction-runs:30000}")
+    private long timeBetweenEvictionRuns;
+
+    @Value("${spring.redis.pool.min-evictable-idle-time:60000}")
+    private long minEvictableIdleTime;
+
+    @Value("${spring.redis.pool.warm-up:true}")
+    private boolean warmUp;
+
+    @Value("${spring.redis.serializer.format:smile}")
+    private String serializerFormat;
+
+    @Value("${spring.redis.serializer.compress-threshold:1024}")
+    private int compressThreshold;
+
+    /**
+     * 部署模式: standalone 单机, master-replica 主从(RedisUtil 的 *FromReplica 方法读从节点), sentinel 哨兵, cluster 集群
+     */
+    @Value("${spring.redis.mode:standalone}")
+    private String mode;
+
+    @Value("${spring.redis.replica.nodes:}")
+    private String replicaNodes;
+
+    @Value("${spring.redis.sentinel.master:}")
+    private String sentinelMaster;
+
+    @Value("${spring.redis.sentinel.nodes:}")
+    private String sentinelNodes;
+
+    @Value("${spring.redis.cluster.nodes:}")
+    private String clusterNodes;
+
+    @Value("${spring.redis.cluster.max-redirects:5}")
+    private int clusterMaxRedirects;
+
     @Bean
     public JedisConnectionFactory redisConnectionFactory() {
-        JedisConnectionFactory factory = new JedisConnectionFactory();
-        factory.setHostName(host);
-        factory.setPort(port);
+        JedisPoolConfig poolConfig = poolConfig();
+        PooledJedisConnectionFactory factory;
+        if (MODE_SENTINEL.equals(mode)) {
+            RedisSentinelConfiguration sentinelConfig = new RedisSentinelConfiguration(sentinelMaster,
+                    StringUtils.commaDelimitedListToSet(sentinelNodes));
+            factory = new PooledJedisConnectionFactory(sentinelConfig, poolConfig, connectTimeout, timeout, warmUp);
+        } else if (MODE_CLUSTER.equals(mode)) {
+            RedisClusterConfiguration clusterConfig = new RedisClusterConfiguration(
+                    StringUtils.commaDelimitedListToSet(clusterNodes));
+            clusterConfig.setMaxRedirects(clusterMaxRedirects);
+            factory = new PooledJedisConnectionFactory(clusterConfig, poolConfig, timeout);
+        } else {
+            // standalone 与 master-replica 的写连接都指向 host:port
+            factory = new PooledJedisConnectionFactory(poolConfig, connectTimeout, timeout, warmUp);
+            factory.setHostName(host);
+            factory.setPort(port);
+            factory.setDatabase(database);
+        }
         factory.setPassword(password);
-        factory.setTimeout(timeout); //设置连接超时时间
+        factory.setClientName(StringUtils.hasText(clientName) ? clientName : null);
         return factory;
     }
 
     /**
-     * 生成key的策略
+     * 主从模式下每个从节点一个只读连接池, 不注册为 RedisConnectionFactory bean, 避免与主节点的工厂冲突
+     *
+     * @return ReplicaReadTemplates
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.redis.mode", havingValue = MODE_MASTER_REPLICA)
+    public ReplicaReadTemplates replicaReadTemplates() {
+        List<JedisConnectionFactory> factories = new ArrayList<>();
+        List<RedisTemplate<String, String>> templates = new ArrayList<>();
+        for (String node : StringUtils.commaDelimitedListToStringArray(replicaNodes)) {
+            String[] hostAndPort = node.trim().split(":");
+            PooledJedisConnectionFactory factory = new PooledJedisConnectionFactory(poolConfig(), connectTimeout, timeout, warmUp);
+            factory.setHostName(hostAndPort[0]);
+            factory.setPort(Integer.parseInt(hostAndPort[1]));
+            factory.setDatabase(database);
+            factory.setPassword(password);
+            factory.setClientName(StringUtils.hasText(clientName) ? clientName : null);
+            factory.afterPropertiesSet();
+            factories.add(factory);
+            templates.add(buildTemplate(factory));
+        }
+        if (templates.isEmpty()) {
+            throw new IllegalStateException("spring.redis.replica.nodes is required in master-replica mode");
+        }
+        return new ReplicaReadTemplates(factories, templates);
+    }
+
+    private JedisPoolConfig poolConfig() {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(maxActive);
+        poolConfig.setMaxIdle(maxIdle);
+        poolConfig.setMinIdle(minIdle);
+        poolConfig.setMaxWaitMillis(maxWait); //获取连接的最大等待时间, 超时抛异常而不是无限等待
+        poolConfig.setTestWhileIdle(true); //空闲连接检测与回收
+        poolConfig.setTimeBetweenEvictionRunsMillis(timeBetweenEvictionRuns);
+        poolConfig.setMinEvictableIdleTimeMillis(minEvictableIdleTime);
+        poolConfig.setNumTestsPerEvictionRun(-1);
+        return poolConfig;
+    }
+
+    /**
+     * 生成key的策略, 见 {@link CacheKeyGenerator}
      *
      * @return KeyGenerator
      */
     @Bean
     public KeyGenerator keyGenerator() {
-        return (target, method, params) -> {
-            StringBuilder sb = new StringBuilder();
-            sb.append(target.getClass().getName());
-            sb.append(method.getName());
-            for (Object obj : params) {
-                sb.append(obj.toString());
-            }
-            return sb.toString();
-        };
+        return new CacheKeyGenerator();
     }
 
     /**
-     * 缓存管理器.
+     * 缓存管理器: 进程内 caffeine 一级缓存 + redis 二级缓存.
      *
      * @param redisTemplate redisTemplate
+     * @param cacheSettings 一级缓存及 redis 过期配置
+     * @param redisUtil 用于广播一级缓存失效
+     * @param redisLock 开启 distributed-load 的缓存加载时使用的集群锁
+     * @param container 订阅其他节点的失效广播
      * @return CacheManager
      */
     @Bean
-    public CacheManager cacheManager(RedisTemplate<?,?> redisTemplate) {
-        RedisCacheManager cacheManager = new RedisCacheManager(redisTemplate);
-        //设置缓存过期时间
-        // rcm.setDefaultExpiration(60);//秒
+    public CacheManager cacheManager(RedisTemplate<?,?> redisTemplate, CacheSettings cacheSettings,
+                                     RedisUtil redisUtil, RedisLock redisLock,
+                                     RedisMessageListenerContainer container) {
+        // 过期时间、过期抖动和最大 key 数量按缓存名在 cache.* 中配置
+        RedisCacheManager redisCacheManager = new BoundedRedisCacheManager(redisTemplate, cacheSettings);
+        redisCacheManager.afterPropertiesSet();
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager, cacheSettings, redisUtil, redisLock);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATE_CHANNEL));
         return cacheManager;
     }
 
@@ -96,15 +233,42 @@ public class RedisCacheConfig extends CachingConfigurerSupport {
      */
     @Bean
     public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory factory) {
+        return buildTemplate(factory);
+    }
+
+    private RedisTemplate<String, String> buildTemplate(RedisConnectionFactory factory) {
         StringRedisTemplate template = new StringRedisTemplate(factory);
-        Jackson2JsonRedisSerializer jackson2JsonRedisSerializer = new Jackson2JsonRedisSerializer(Object.class);
-        ObjectMapper om = new ObjectMapper();
-        om.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        om.enableDefaultTyping(ObjectMapper.DefaultTyping.NON_FINAL);
-        jackson2JsonRedisSerializer.setObjectMapper(om);
-        template.setValueSerializer(jackson2JsonRedisSerializer);
+        ObjectMapper jsonMapper = objectMapper(new ObjectMapper());
+        ObjectMapper smileMapper = objectMapper(new ObjectMapper(new SmileFactory()));
+        // 迁移前写入的值是没有格式头的 json, 仍由原来的 jackson 序列化器读取
+        Jackson2JsonRedisSerializer legacySerializer = new Jackson2JsonRedisSerializer(Object.class);
+        legacySerializer.setObjectMapper(jsonMapper);
+        byte format = "json".equalsIgnoreCase(serializerFormat)
+                ? VersionedRedisSerializer.FORMAT_JSON : VersionedRedisSerializer.FORMAT_SMILE;
+        template.setValueSerializer(new VersionedRedisSerializer(format, jsonMapper, smileMapper,
+                legacySerializer, compressThreshold));
         template.afterPropertiesSet();
         return template;
     }
 
+    private static ObjectMapper objectMapper(ObjectMapper om) {
+        om.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        om.enableDefaultTyping(ObjectMapper.DefaultTyping.NON_FINAL);
+        return om;
+    }
+
+    /**
+     * redis 发布/订阅监听容器, 用于在各节点之间广播本地缓存失效消息;
+     * 复用上面配置的连接工厂
+     *
+     * @param factory redis 连接工厂
+     * @return RedisMessageListenerContainer
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory factory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        return container;
+    }
+
 }
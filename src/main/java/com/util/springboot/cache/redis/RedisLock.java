@@ -0,0 +1,360 @@
+package com.util.springboot.cache.redis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description 基于 redis 的分布式锁, 用于多节点部署时只让一个节点执行定时任务、缓存重建等耗时操作;
+ * 加锁用 SET NX PX, 持有期间由看门狗定期续期, 解锁用 lua 比较后删除并广播释放消息,
+ * 等待锁的节点收到广播后立即重试, 不需要轮询.
+ * 每次加锁成功都会得到一个单调递增的 fencing token, 锁可能因 GC 停顿、网络分区等原因在持有者不知情时过期,
+ * 下游写入时应携带该 token 并拒绝比已见过的更小的 token
+ */
+@Component
+public class RedisLock implements MessageListener, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisLock.class);
+
+    /** 锁释放广播频道, 消息内容为锁名称 */
+    public static final String RELEASE_CHANNEL = "lock:release";
+
+    /** 等待中单次最长阻塞时间, 兜底错过释放广播的情况 */
+    private static final long MAX_PARK_MILLIS = 1000;
+
+    /** 锁恰好过期时的重试间隔 */
+    private static final long MIN_PARK_MILLIS = 10;
+
+    /**
+     * 加锁成功返回 fencing token(>= 1), 失败返回锁剩余过期时间的相反数(<= 0);
+     * 锁 key 与 token 计数器用同一个 hash tag, 集群模式下在同一个 slot.
+     * 每个锁名称一个计数器, 计数器带过期时间, 否则每个用过的锁名称都会在 redis 中永久留下一个 key;
+     * 计数器过期后重新创建时从 ARGV[3](当前毫秒时间 * 1000)起步, 保证 token 仍大于过期前发出的
+     */
+    private static final DefaultRedisScript<Long> ACQUIRE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2], 'NX') then "
+                    + "local token = redis.call('incr', KEYS[2]) "
+                    + "if token < tonumber(ARGV[3]) then redis.call('set', KEYS[2], ARGV[3]) token = tonumber(ARGV[3]) end "
+                    + "redis.call('pexpire', KEYS[2], ARGV[4]) "
+                    + "return token end "
+                    + "local ttl = redis.call('pttl', KEYS[1]) "
+                    + "if ttl == -1 then ttl = tonumber(ARGV[2]) elseif ttl < 0 then ttl = 0 end "
+                    + "return -ttl", Long.class);
+
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) end "
+                    + "return 0", Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end "
+                    + "redis.call('del', KEYS[1]) "
+                    + "redis.call('publish', ARGV[2], ARGV[3]) "
+                    + "return 1", Long.class);
+
+    @Autowired
+    private RedisTemplate redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    /** 未指定持有时间时的锁过期时间(毫秒), 看门狗每 1/3 个周期续期一次 */
+    @Value("${spring.redis.lock.lease-time:30000}")
+    private long defaultLeaseMillis;
+
+    /**
+     * fencing token 计数器的过期时间(毫秒), 每次加锁成功时刷新; 需远大于锁的持有时间,
+     * 计数器过期后新 token 以当前时间为起点, 各节点时钟偏差须小于该值
+     */
+    @Value("${spring.redis.lock.fence-ttl:604800000}")
+    private long fenceTtlMillis;
+
+    /** 按锁名称登记的等待者, 收到释放广播时唤醒 */
+    private final Map<String, Signal> signals = new ConcurrentHashMap<>();
+
+    private final ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "redis-lock-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void subscribe() {
+        watchdog.setRemoveOnCancelPolicy(true);
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(RELEASE_CHANNEL));
+    }
+
+    /**
+     * 尝试加锁, 不等待; 持有期间由看门狗自动续期, 直到调用 {@link Lease#close()}
+     *
+     * @param name 锁名称
+     * @return 加锁成功返回 Lease, 否则返回 null
+     */
+    public Lease tryLock(String name) {
+        return tryLock(name, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 尝试加锁, 最多等待 waitTime; 持有期间由看门狗自动续期, 直到调用 {@link Lease#close()}
+     *
+     * @param name 锁名称
+     * @param waitTime 最长等待时间
+     * @param unit 时间单位
+     * @return 加锁成功返回 Lease, 超时或等待时被中断返回 null
+     */
+    public Lease tryLock(String name, long waitTime, TimeUnit unit) {
+        return acquire(name, unit.toMillis(waitTime), defaultLeaseMillis, true);
+    }
+
+    /**
+     * 尝试加锁, 最多等待 waitTime; 锁在 leaseTime 后自动过期, 不续期
+     *
+     * @param name 锁名称
+     * @param waitTime 最长等待时间
+     * @param leaseTime 持有时间
+     * @param unit 时间单位
+     * @return 加锁成功返回 Lease, 超时或等待时被中断返回 null
+     */
+    public Lease tryLock(String name, long waitTime, long leaseTime, TimeUnit unit) {
+        return acquire(name, unit.toMillis(waitTime), unit.toMillis(leaseTime), false);
+    }
+
+    /**
+     * 抢到锁时执行任务, 否则直接跳过; 适合每个节点都会触发的 @Scheduled 任务
+     *
+     * @param name 锁名称
+     * @param task 任务
+     * @return 是否执行了任务
+     */
+    public boolean runExclusively(String name, Runnable task) {
+        try (Lease lease = tryLock(name)) {
+            if (lease == null) {
+                log.debug("ZGH20510: lock [{}] held by another node, skip", name);
+                return false;
+            }
+            task.run();
+            return true;
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Signal signal = signals.get(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (signal != null) {
+            signal.signal();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        watchdog.shutdownNow();
+    }
+
+    private Lease acquire(String name, long waitMillis, long leaseMillis, boolean renew) {
+        String owner = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + waitMillis;
+        Signal signal = null;
+        try {
+            while (true) {
+                long seen = signal != null ? signal.version() : 0;
+                long result = execute(ACQUIRE_SCRIPT, 2, lockKey(name), fenceKey(name), owner, leaseMillis,
+                        System.currentTimeMillis() * 1000, fenceTtlMillis);
+                if (result > 0) {
+                    Lease lease = new Lease(name, owner, result, leaseMillis);
+                    if (renew) {
+                        lease.startWatchdog();
+                    }
+                    return lease;
+                }
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return null;
+                }
+                if (signal == null) {
+                    // 先登记再重试一次, 避免在登记前发生的释放被错过
+                    signal = register(name);
+                    continue;
+                }
+                // 锁到期前没有释放广播时也要醒来重试, 持有者可能已宕机
+                long ttl = -result;
+                long park = Math.min(remaining, ttl > 0 ? Math.min(MAX_PARK_MILLIS, ttl) : MIN_PARK_MILLIS);
+                if (!signal.await(seen, park)) {
+                    return null;
+                }
+            }
+        } finally {
+            if (signal != null) {
+                unregister(name);
+            }
+        }
+    }
+
+    private Signal register(String name) {
+        return signals.compute(name, (key, signal) -> {
+            Signal current = signal != null ? signal : new Signal();
+            current.waiters++;
+            return current;
+        });
+    }
+
+    private void unregister(String name) {
+        signals.computeIfPresent(name, (key, signal) -> --signal.waiters == 0 ? null : signal);
+    }
+
+    private static String lockKey(String name) {
+        return "lock:" + RedisUtil.hashTag(name, "");
+    }
+
+    private static String fenceKey(String name) {
+        return "lock:" + RedisUtil.hashTag(name, ":fence");
+    }
+
+    @SuppressWarnings("unchecked")
+    private long execute(DefaultRedisScript<Long> script, int numKeys, Object... keysAndArgs) {
+        final byte[][] raw = new byte[keysAndArgs.length][];
+        for (int i = 0; i < keysAndArgs.length; i++) {
+            raw[i] = RedisScripts.bytes(keysAndArgs[i]);
+        }
+        Long result = (Long) redisTemplate.execute((RedisCallback<Long>) connection ->
+                RedisScripts.eval(connection, script, ReturnType.INTEGER, numKeys, raw));
+        return result != null ? result : 0L;
+    }
+
+    /**
+     * 已持有的锁, 通过 close 释放; 可用于 try-with-resources
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final String name;
+
+        private final String owner;
+
+        private final long fencingToken;
+
+        private final long leaseMillis;
+
+        private volatile boolean held = true;
+
+        private volatile ScheduledFuture<?> renewal;
+
+        private Lease(String name, String owner, long fencingToken, long leaseMillis) {
+            this.name = name;
+            this.owner = owner;
+            this.fencingToken = fencingToken;
+            this.leaseMillis = leaseMillis;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * 本次加锁的 fencing token, 同一个锁名称下严格递增
+         */
+        public long getFencingToken() {
+            return fencingToken;
+        }
+
+        /**
+         * 是否仍持有锁; 看门狗续期失败(锁已过期并被其他节点获取)后返回 false
+         */
+        public boolean isHeld() {
+            return held;
+        }
+
+        @Override
+        public void close() {
+            if (!held) {
+                return;
+            }
+            held = false;
+            stopWatchdog();
+            if (execute(RELEASE_SCRIPT, 1, lockKey(name), owner, RELEASE_CHANNEL, name) == 0) {
+                log.warn("ZGH20520: lock [{}] expired before release, fencingToken = {}", name, fencingToken);
+            }
+        }
+
+        private void startWatchdog() {
+            long period = Math.max(1, leaseMillis / 3);
+            renewal = watchdog.scheduleAtFixedRate(this::renew, period, period, TimeUnit.MILLISECONDS);
+        }
+
+        private void stopWatchdog() {
+            ScheduledFuture<?> current = renewal;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+
+        private void renew() {
+            try {
+                if (held && execute(RENEW_SCRIPT, 1, lockKey(name), owner, leaseMillis) == 0) {
+                    held = false;
+                    stopWatchdog();
+                    log.warn("ZGH20530: lock [{}] lost, fencingToken = {}", name, fencingToken);
+                }
+            } catch (RuntimeException e) {
+                // 单次续期失败不放弃, 下个周期重试; 锁在 leaseMillis 内仍然有效
+                log.warn("ZGH20540: lock [{}] renew failed", name, e);
+            }
+        }
+
+    }
+
+    /**
+     * 等待者的唤醒信号; version 在每次释放广播时递增, 等待前比较 version, 避免错过登记后、等待前发生的广播
+     */
+    private static final class Signal {
+
+        /** 只在 signals.compute 中修改 */
+        private int waiters;
+
+        private long version;
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized void signal() {
+            version++;
+            notifyAll();
+        }
+
+        /**
+         * @return 被中断时返回 false
+         */
+        synchronized boolean await(long seen, long millis) {
+            if (version != seen) {
+                return true;
+            }
+            try {
+                wait(millis);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package com.util.springboot.cache.redis;
+
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.script.RedisScript;
+import redis.clients.jedis.JedisCluster;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @description 在原始连接上执行 lua 脚本: 先 EVALSHA, 脚本未缓存(NOSCRIPT)时再 EVAL 一次;
+ * 集群模式下通过 JedisCluster 发送到 key 所在的节点
+ */
+public abstract class RedisScripts {
+
+    /**
+     * 执行脚本
+     *
+     * @param connection redis 连接
+     * @param script 脚本
+     * @param returnType 返回值类型
+     * @param numKeys keysAndArgs 中 key 的个数
+     * @param keysAndArgs 先 key 后参数
+     * @param <T> 返回值类型
+     * @return 脚本返回值
+     */
+    public static <T> T eval(RedisConnection connection, RedisScript<?> script, ReturnType returnType,
+                             int numKeys, byte[]... keysAndArgs) {
+        if (connection instanceof RedisClusterConnection) {
+            return evalOnCluster((JedisCluster) connection.getNativeConnection(), script, numKeys, keysAndArgs);
+        }
+        try {
+            return connection.evalSha(script.getSha1(), returnType, numKeys, keysAndArgs);
+        } catch (RuntimeException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("NOSCRIPT")) {
+                throw e;
+            }
+            return connection.eval(script.getScriptAsString().getBytes(StandardCharsets.UTF_8),
+                    returnType, numKeys, keysAndArgs);
+        }
+    }
+
+    /**
+     * 集群连接不支持 EVAL, 直接用 JedisCluster 按第一个 key 路由; 脚本中的 key 必须在同一个 slot.
+     * jedis 原样返回整数(Long)、单值(byte[])和多值(List&lt;byte[]&gt;)回复, 与 INTEGER / VALUE / MULTI 的返回类型一致
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T evalOnCluster(JedisCluster cluster, RedisScript<?> script, int numKeys, byte[]... keysAndArgs) {
+        try {
+            return (T) cluster.evalsha(bytes(script.getSha1()), numKeys, keysAndArgs);
+        } catch (RuntimeException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("NOSCRIPT")) {
+                throw e;
+            }
+            return (T) cluster.eval(script.getScriptAsString().getBytes(StandardCharsets.UTF_8), numKeys, keysAndArgs);
+        }
+    }
+
+    /**
+     * 字符串按 UTF-8 编码, 用于脚本参数
+     *
+     * @param value 参数
+     * @return 字节数组
+     */
+    public static byte[] bytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -1,13 +1,42 @@
 package com.util.springboot.cache.redis;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 
+import java.io.IOException;
 import java.io.Serializable;
-import java.util.Set;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
 
 /**
  * @author Netury
@@ -17,29 +46,218 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class RedisUtil {
 
+    private static final Logger log = LoggerFactory.getLogger(RedisUtil.class);
+
     @Autowired
     private RedisTemplate redisTemplate;
 
+    @Value("${spring.redis.scan.batch-size:500}")
+    private int scanBatchSize;
+
+    /** 单个 pipeline 或单条 MGET/MSET/DEL 最多包含的 key 数量 */
+    @Value("${spring.redis.pipeline.batch-size:1000}")
+    private int pipelineBatchSize;
+
+    private volatile boolean unlinkSupported = true;
+
+    /** 主从模式下的只读模板, 其他模式为 null */
+    @Autowired(required = false)
+    private ReplicaReadTemplates replicaReadTemplates;
+
+    @Value("${spring.redis.mode:standalone}")
+    private String mode;
+
+    private static final DefaultRedisScript<Long> UNLINK_SCRIPT =
+            new DefaultRedisScript<>("return redis.call('unlink', unpack(KEYS))", Long.class);
+
+    private static final DefaultRedisScript<byte[]> GET_AND_EXPIRE_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('get', KEYS[1]) "
+                    + "if v then redis.call('expire', KEYS[1], ARGV[1]) end "
+                    + "return v", byte[].class);
+
+    private static final DefaultRedisScript<Long> COMPARE_AND_SET_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) ~= ARGV[1] then return 0 end "
+                    + "if tonumber(ARGV[3]) > 0 then redis.call('set', KEYS[1], ARGV[2], 'EX', ARGV[3]) "
+                    + "else redis.call('set', KEYS[1], ARGV[2]) end "
+                    + "return 1", Long.class);
+
+    private static final DefaultRedisScript<Long> COMPARE_AND_DELETE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end "
+                    + "return 0", Long.class);
+
+    private static final DefaultRedisScript<Long> UPDATE_MAX_SCRIPT = new DefaultRedisScript<>(
+            "local current = tonumber(redis.call('get', KEYS[1]) or '0') "
+                    + "if tonumber(ARGV[1]) > current then redis.call('set', KEYS[1], ARGV[1]) return tonumber(ARGV[1]) end "
+                    + "return current", Long.class);
+
+    private static final DefaultRedisScript<Long> SET_IF_ABSENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2], 'NX') then return 1 end "
+                    + "return 0", Long.class);
+
     /**
-     * 批量删除对应的value
+     * 令牌桶: hash 中保存剩余令牌数和上次补充时间, 按经过的时间补充后尝试扣减;
+     * 过期时间为桶从空到满所需时间, 长时间无请求的桶自动清理
+     */
+    private static final DefaultRedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>(
+            "local capacity = tonumber(ARGV[1]) "
+                    + "local rate = tonumber(ARGV[2]) "
+                    + "local now = tonumber(ARGV[3]) "
+                    + "local permits = tonumber(ARGV[4]) "
+                    + "local bucket = redis.call('hmget', KEYS[1], 'tokens', 'ts') "
+                    + "local tokens = tonumber(bucket[1]) "
+                    + "local ts = tonumber(bucket[2]) "
+                    + "if tokens == nil then tokens = capacity ts = now end "
+                    + "if now > ts then tokens = math.min(capacity, tokens + (now - ts) * rate) ts = now end "
+                    + "local allowed = 0 "
+                    + "if tokens >= permits then tokens = tokens - permits allowed = 1 end "
+                    + "redis.call('hmset', KEYS[1], 'tokens', tokens, 'ts', ts) "
+                    + "redis.call('pexpire', KEYS[1], math.ceil(capacity / rate) + 1000) "
+                    + "return allowed", Long.class);
+
+    /**
+     * 批量删除对应的value, 一次 DEL 删除全部 key
      *
      * @param keys 存储的keys
      */
     public void remove(final String... keys) {
-        for (String key : keys) {
-            remove(key);
-        }
+        multiRemove(Arrays.asList(keys));
+    }
+
+    /**
+     * 按通配符批量删除key, 使用 SCAN 游标分批遍历, 每批用 UNLINK(低版本 redis 退化为 DEL)删除,
+     * 不会像 KEYS 一样长时间阻塞 redis
+     *
+     * @param pattern 存储的key
+     * @return 删除的 key 数量
+     */
+    public long removePattern(final String pattern) {
+        return removePattern(pattern, scanBatchSize, null);
     }
 
     /**
-     * 批量删除key
+     * 按通配符批量删除key
      *
      * @param pattern 存储的key
+     * @param batchSize 每次 SCAN 的 COUNT 提示值, 同时也是每次删除的 key 数量
+     * @param progress 每删除一批后回调累计删除数量, 可为 null
+     * @return 删除的 key 数量
      */
-    public void removePattern(final String pattern) {
-        Set<Serializable> keys = redisTemplate.keys(pattern);
-        if (keys.size() > 0)
-            redisTemplate.delete(keys);
+    public long removePattern(final String pattern, final int batchSize, final LongConsumer progress) {
+        final ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        Long deleted = (Long) redisTemplate.execute((RedisCallback<Long>) connection -> {
+            if (connection instanceof RedisClusterConnection) {
+                return removePatternOnCluster((JedisCluster) connection.getNativeConnection(), pattern, batchSize, progress);
+            }
+            long total = 0;
+            List<byte[]> batch = new ArrayList<>(batchSize);
+            Cursor<byte[]> cursor = connection.scan(options);
+            try {
+                while (cursor.hasNext()) {
+                    batch.add(cursor.next());
+                    if (batch.size() >= batchSize) {
+                        total += unlink(connection, batch);
+                        batch.clear();
+                        if (progress != null) {
+                            progress.accept(total);
+                        }
+                    }
+                }
+            } finally {
+                try {
+                    cursor.close();
+                } catch (IOException e) {
+                    log.warn("ZGH20210: close scan cursor failed", e);
+                }
+            }
+            if (!batch.isEmpty()) {
+                total += unlink(connection, batch);
+                if (progress != null) {
+                    progress.accept(total);
+                }
+            }
+            return total;
+        });
+        return deleted == null ? 0 : deleted;
+    }
+
+    /**
+     * 异步按通配符批量删除key, 在 @Async 线程池中执行
+     *
+     * @param pattern 存储的key
+     * @return 删除的 key 数量
+     */
+    @Async
+    public Future<Long> removePatternAsync(final String pattern) {
+        return new AsyncResult<>(removePattern(pattern));
+    }
+
+    /**
+     * 集群模式下 SCAN 只作用于单个节点, 逐个 master 节点遍历; 同一批中的 key 按 slot 分组后删除
+     */
+    private long removePatternOnCluster(JedisCluster cluster, String pattern, int batchSize, LongConsumer progress) {
+        long total = 0;
+        ScanParams params = new ScanParams().match(pattern).count(batchSize);
+        for (JedisPool nodePool : cluster.getClusterNodes().values()) {
+            try (Jedis jedis = nodePool.getResource()) {
+                if (!jedis.info("replication").contains("role:master")) {
+                    continue;
+                }
+                byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+                do {
+                    ScanResult<byte[]> result = jedis.scan(cursor, params);
+                    Map<Integer, List<byte[]>> bySlot = new LinkedHashMap<>();
+                    for (byte[] key : result.getResult()) {
+                        bySlot.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(key), slot -> new ArrayList<>()).add(key);
+                    }
+                    for (List<byte[]> slotKeys : bySlot.values()) {
+                        total += jedis.del(slotKeys.toArray(new byte[slotKeys.size()][]));
+                    }
+                    if (progress != null && !bySlot.isEmpty()) {
+                        progress.accept(total);
+                    }
+                    cursor = result.getCursorAsBytes();
+                } while (!Arrays.equals(cursor, ScanParams.SCAN_POINTER_START_BINARY));
+            }
+        }
+        return total;
+    }
+
+    private long unlink(RedisConnection connection, List<byte[]> keys) {
+        byte[][] rawKeys = keys.toArray(new byte[keys.size()][]);
+        if (unlinkSupported) {
+            try {
+                // 通过脚本发送, 客户端的命令枚举里没有 UNLINK 也能使用
+                Long result = RedisScripts.eval(connection, UNLINK_SCRIPT, ReturnType.INTEGER, rawKeys.length, rawKeys);
+                return result == null ? 0 : result;
+            } catch (RuntimeException e) {
+                // 连接异常等其他错误照常抛出, 不能因一次瞬时故障永久关闭 UNLINK
+                if (!isUnknownCommand(e)) {
+                    throw e;
+                }
+                // redis 4.0 以下没有 UNLINK 命令
+                log.warn("ZGH20220: UNLINK not supported, fall back to DEL", e);
+                unlinkSupported = false;
+            }
+        }
+        Long result = connection.del(rawKeys);
+        return result == null ? 0 : result;
+    }
+
+    /**
+     * 是否为命令不存在的错误; 直接调用时为 "ERR unknown command",
+     * 在脚本中调用时为 "Unknown Redis command called from Lua script"
+     */
+    static boolean isUnknownCommand(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = cause.getMessage();
+            if (message != null) {
+                String lower = message.toLowerCase(Locale.ROOT);
+                if (lower.contains("unknown command") || lower.contains("unknown redis command")) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     /**
@@ -48,9 +266,8 @@ public class RedisUtil {
      * @param key 存储的key
      */
     public void remove(final String key) {
-        if (exists(key)) {
-            redisTemplate.delete(key);
-        }
+        // DEL 不存在的 key 不会报错, 无需先 EXISTS
+        redisTemplate.delete(key);
     }
 
     /**
@@ -63,6 +280,16 @@ public class RedisUtil {
         return redisTemplate.hasKey(key);
     }
 
+    /**
+     * 判断缓存中是否有对应的value, 主从模式下读从节点, 可能读不到刚写入的 key
+     *
+     * @param key 存储的key
+     * @return boolean
+     */
+    public boolean existsFromReplica(final String key) {
+        return replicaTemplate().hasKey(key);
+    }
+
     /**
      * 读取缓存
      *
@@ -75,6 +302,17 @@ public class RedisUtil {
         return result == null ? null : result;
     }
 
+    /**
+     * 读取缓存, 主从模式下读从节点; 从节点异步复制, 可能返回旧值或 null, 只用于能容忍延迟的读
+     *
+     * @param key 存储的key
+     * @return Object
+     */
+    @SuppressWarnings("unchecked")
+    public Object getFromReplica(final String key) {
+        return replicaTemplate().opsForValue().get(key);
+    }
+
     /**
      * 写入缓存
      *
@@ -95,18 +333,18 @@ public class RedisUtil {
     }
 
     /**
-     * 写入缓存
+     * 写入缓存并设置过期时间, 一条 SETEX 命令完成, 不会留下没有过期时间的 key
      *
      * @param key 存储的key
      * @param value 存储的值
+     * @param expireTime 过期时间(秒)
      * @return boolean
      */
     public boolean set(final String key, Object value, Long expireTime) {
         boolean result = false;
         try {
             ValueOperations<Serializable, Object> operations = redisTemplate.opsForValue();
-            operations.set(key, value);
-            redisTemplate.expire(key, expireTime, TimeUnit.SECONDS);
+            operations.set(key, value, expireTime, TimeUnit.SECONDS);
             result = true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -114,4 +352,308 @@ public class RedisUtil {
         return result;
     }
 
+    /**
+     * key 不存在时写入并设置过期时间, 一条 SET NX PX 命令完成, 可用于锁和去重;
+     * 经 lua 发送, 集群模式下同样可用
+     *
+     * @param key 存储的key
+     * @param value 存储的值
+     * @param expireTime 过期时间
+     * @param unit 时间单位
+     * @return 是否写入成功
+     */
+    public boolean setIfAbsent(final String key, final Object value, final long expireTime, final TimeUnit unit) {
+        final byte[][] keysAndArgs = {rawKey(key), rawValue(value), RedisScripts.bytes(unit.toMillis(expireTime))};
+        Long result = (Long) redisTemplate.execute((RedisCallback<Long>) connection ->
+                RedisScripts.eval(connection, SET_IF_ABSENT_SCRIPT, ReturnType.INTEGER, 1, keysAndArgs));
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 读取缓存并刷新过期时间, 读取和续期在同一个 lua 脚本中完成
+     *
+     * @param key 存储的key
+     * @param expireTime 新的过期时间(秒)
+     * @return Object, 不存在时返回 null 且不创建 key
+     */
+    public Object getAndExpire(final String key, final long expireTime) {
+        final byte[] rawKey = rawKey(key);
+        final byte[] seconds = RedisScripts.bytes(expireTime);
+        byte[] rawValue = (byte[]) redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                RedisScripts.eval(connection, GET_AND_EXPIRE_SCRIPT, ReturnType.VALUE, 1, rawKey, seconds));
+        return rawValue == null ? null : redisTemplate.getValueSerializer().deserialize(rawValue);
+    }
+
+    /**
+     * 当前值等于 expect 时替换为 update, 比较与写入是原子的;
+     * 值按 value 序列化后的字节比较
+     *
+     * @param key 存储的key
+     * @param expect 期望的当前值
+     * @param update 新值
+     * @param expireTime 新值的过期时间(秒), 小于等于 0 时不过期
+     * @return 是否替换成功
+     */
+    public boolean compareAndSet(final String key, final Object expect, final Object update, final long expireTime) {
+        final byte[][] keysAndArgs = {rawKey(key), rawValue(expect), rawValue(update), RedisScripts.bytes(expireTime)};
+        Long result = (Long) redisTemplate.execute((RedisCallback<Long>) connection ->
+                RedisScripts.eval(connection, COMPARE_AND_SET_SCRIPT, ReturnType.INTEGER, 1, keysAndArgs));
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 当前值等于 expect 时删除, 比较与删除是原子的; 用于只释放自己持有的锁
+     *
+     * @param key 存储的key
+     * @param expect 期望的当前值
+     * @return 是否删除成功
+     */
+    public boolean compareAndDelete(final String key, final Object expect) {
+        final byte[][] keysAndArgs = {rawKey(key), rawValue(expect)};
+        Long result = (Long) redisTemplate.execute((RedisCallback<Long>) connection ->
+                RedisScripts.eval(connection, COMPARE_AND_DELETE_SCRIPT, ReturnType.INTEGER, 1, keysAndArgs));
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 把 key 中的整数更新为它与 value 的较大者, 比较与写入是原子的, 值只增不减;
+     * 值按十进制字符串存储, 不经 value 序列化, 只能用本方法读写. value 传 0 时只读取当前值
+     *
+     * @param key 存储的key
+     * @param value 候选值, 须为非负数
+     * @return 更新后的值, key 不存在且 value 为 0 时返回 0
+     */
+    public long updateMax(final String key, final long value) {
+        final byte[][] keysAndArgs = {rawKey(key), RedisScripts.bytes(value)};
+        Long result = (Long) redisTemplate.execute((RedisCallback<Long>) connection ->
+                RedisScripts.eval(connection, UPDATE_MAX_SCRIPT, ReturnType.INTEGER, 1, keysAndArgs));
+        return result != null ? result : 0L;
+    }
+
+    /**
+     * 从令牌桶中取令牌, 补充和扣减在一个 lua 脚本中原子完成, 多个节点共享同一个桶;
+     * 时间取本机时钟, 节点间的时钟偏差只影响补充速度, 不会破坏桶容量上限
+     *
+     * @param key 桶的key
+     * @param capacity 桶容量, 即允许的突发请求数
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param permits 本次需要的令牌数
+     * @return 是否取到令牌
+     */
+    public boolean tryAcquire(final String key, final long capacity, final double permitsPerSecond, final int permits) {
+        final byte[][] keysAndArgs = {rawKey(key), RedisScripts.bytes(capacity),
+                RedisScripts.bytes(permitsPerSecond / 1000), RedisScripts.bytes(System.currentTimeMillis()),
+                RedisScripts.bytes(permits)};
+        Long result = (Long) redisTemplate.execute((RedisCallback<Long>) connection ->
+                RedisScripts.eval(connection, TOKEN_BUCKET_SCRIPT, ReturnType.INTEGER, 1, keysAndArgs));
+        return result != null && result == 1L;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawKey(String key) {
+        return redisTemplate.getKeySerializer().serialize(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] rawValue(Object value) {
+        return redisTemplate.getValueSerializer().serialize(value);
+    }
+
+    /**
+     * 批量读取缓存, 每 {@code pipelineBatchSize} 个 key 一次 MGET
+     *
+     * @param keys 存储的keys
+     * @return 与 keys 顺序一致的值列表, 不存在的 key 对应 null
+     */
+    public List<Object> multiGet(final Collection<String> keys) {
+        return multiGet(redisTemplate, keys);
+    }
+
+    /**
+     * 批量读取缓存, 主从模式下读从节点, 可能返回旧值, 只用于能容忍延迟的读
+     *
+     * @param keys 存储的keys
+     * @return 与 keys 顺序一致的值列表, 不存在的 key 对应 null
+     */
+    public List<Object> multiGetFromReplica(final Collection<String> keys) {
+        return multiGet(replicaTemplate(), keys);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> multiGet(RedisTemplate template, Collection<String> keys) {
+        List<Object> values = new ArrayList<>(keys.size());
+        for (List<String> chunk : partition(keys)) {
+            List<Object> chunkValues = template.opsForValue().multiGet(chunk);
+            values.addAll(chunkValues);
+        }
+        return values;
+    }
+
+    /**
+     * 批量写入缓存; 不过期时每批一次 MSET, 需要过期时每批一个 pipeline, 其中每个 key 一条 SET EX
+     *
+     * @param entries 存储的key和值
+     * @param expireTime 过期时间(秒), 为 null 时不过期
+     */
+    @SuppressWarnings("unchecked")
+    public void multiSet(final Map<String, Object> entries, final Long expireTime) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (expireTime == null) {
+            for (List<String> chunk : partition(entries.keySet())) {
+                Map<String, Object> chunkEntries = new LinkedHashMap<>(chunk.size() * 2);
+                chunk.forEach(key -> chunkEntries.put(key, entries.get(key)));
+                redisTemplate.opsForValue().multiSet(chunkEntries);
+            }
+            return;
+        }
+        final RedisSerializer keySerializer = redisTemplate.getKeySerializer();
+        final RedisSerializer valueSerializer = redisTemplate.getValueSerializer();
+        for (final List<String> chunk : partition(entries.keySet())) {
+            RedisCallback<Object> callback = connection -> {
+                for (String key : chunk) {
+                    connection.setEx(keySerializer.serialize(key), expireTime, valueSerializer.serialize(entries.get(key)));
+                }
+                return null;
+            };
+            // 集群连接不支持 pipeline, 逐条发送
+            if (isCluster()) {
+                redisTemplate.execute(callback);
+            } else {
+                redisTemplate.executePipelined(callback);
+            }
+        }
+    }
+
+    /**
+     * 批量删除缓存, 每 {@code pipelineBatchSize} 个 key 一次 DEL
+     *
+     * @param keys 存储的keys
+     * @return 实际删除的 key 数量
+     */
+    public long multiRemove(final Collection<String> keys) {
+        long deleted = 0;
+        for (List<String> chunk : partition(keys)) {
+            final byte[][] rawKeys = rawKeys(chunk);
+            Long result = (Long) redisTemplate.execute((RedisCallback<Long>) connection -> connection.del(rawKeys));
+            deleted += result == null ? 0 : result;
+        }
+        return deleted;
+    }
+
+    /**
+     * 批量判断 key 是否存在, 每 {@code pipelineBatchSize} 个 key 一个 pipeline
+     *
+     * @param keys 存储的keys
+     * @return key -> 是否存在
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Boolean> multiExists(final Collection<String> keys) {
+        Map<String, Boolean> result = new LinkedHashMap<>(keys.size() * 2);
+        for (final List<String> chunk : partition(keys)) {
+            final byte[][] rawKeys = rawKeys(chunk);
+            if (isCluster()) {
+                // 集群连接不支持 pipeline, 逐条发送
+                for (int i = 0; i < chunk.size(); i++) {
+                    final byte[] rawKey = rawKeys[i];
+                    result.put(chunk.get(i), Boolean.TRUE.equals(redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.exists(rawKey))));
+                }
+                continue;
+            }
+            List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (byte[] rawKey : rawKeys) {
+                    connection.exists(rawKey);
+                }
+                return null;
+            });
+            for (int i = 0; i < chunk.size(); i++) {
+                result.put(chunk.get(i), Boolean.TRUE.equals(replies.get(i)));
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[][] rawKeys(List<String> keys) {
+        RedisSerializer keySerializer = redisTemplate.getKeySerializer();
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = keySerializer.serialize(keys.get(i));
+        }
+        return rawKeys;
+    }
+
+    /**
+     * 按 pipelineBatchSize 切分, 限制单个 pipeline / 多 key 命令的大小,
+     * 避免一次请求在 redis 端占用过久或回复缓冲过大;
+     * 集群模式下先按 slot 分组, 保证每条 MGET/MSET/DEL 只涉及一个 slot
+     */
+    private List<List<String>> partition(Collection<String> keys) {
+        if (isCluster()) {
+            Map<Integer, List<String>> bySlot = new LinkedHashMap<>();
+            for (String key : keys) {
+                bySlot.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(key), slot -> new ArrayList<>()).add(key);
+            }
+            List<List<String>> chunks = new ArrayList<>();
+            for (List<String> slotKeys : bySlot.values()) {
+                chunks.addAll(chunk(slotKeys));
+            }
+            return chunks;
+        }
+        return chunk(keys);
+    }
+
+    private List<List<String>> chunk(Collection<String> keys) {
+        List<List<String>> chunks = new ArrayList<>(keys.size() / pipelineBatchSize + 1);
+        List<String> chunk = new ArrayList<>(Math.min(keys.size(), pipelineBatchSize));
+        for (String key : keys) {
+            chunk.add(key);
+            if (chunk.size() >= pipelineBatchSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(pipelineBatchSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * 生成带 hash tag 的 key: {tag}key; 集群模式下相同 tag 的 key 落在同一个 slot,
+     * 可以在一条多 key 命令或一个 lua 脚本中一起操作
+     *
+     * @param tag 分组标记, 例如用户id
+     * @param key 原始key
+     * @return 带 hash tag 的 key
+     */
+    public static String hashTag(final String tag, final String key) {
+        return "{" + tag + "}" + key;
+    }
+
+    private boolean isCluster() {
+        return RedisCacheConfig.MODE_CLUSTER.equals(mode);
+    }
+
+    /**
+     * 主从模式下轮询从节点, 其他模式为主节点; 默认的读方法都走主节点以保证读己之写, 只有 *FromReplica 方法使用
+     */
+    private RedisTemplate replicaTemplate() {
+        return replicaReadTemplates != null ? replicaReadTemplates.next() : redisTemplate;
+    }
+
+    /**
+     * 向指定频道发布一条字符串消息, 频道与消息均按 UTF-8 编码,
+     * 不经过 value 序列化器
+     *
+     * @param channel 频道
+     * @param message 消息内容
+     */
+    public void publish(final String channel, final String message) {
+        final byte[] rawChannel = channel.getBytes(StandardCharsets.UTF_8);
+        final byte[] rawMessage = message.getBytes(StandardCharsets.UTF_8);
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(rawChannel, rawMessage));
+    }
+
 }
@@ -0,0 +1,43 @@
+package com.util.springboot.cache.redis;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @description 主从模式下指向各个从节点的只读 RedisTemplate, 轮询选取;
+ * 从节点是异步复制的, 刚写入的数据可能读不到, 需要读己之写的场景应直接使用主节点
+ */
+public class ReplicaReadTemplates implements DisposableBean {
+
+    private final List<RedisTemplate<String, String>> templates;
+
+    private final List<JedisConnectionFactory> factories;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaReadTemplates(List<JedisConnectionFactory> factories, List<RedisTemplate<String, String>> templates) {
+        this.factories = new ArrayList<>(factories);
+        this.templates = Collections.unmodifiableList(new ArrayList<>(templates));
+    }
+
+    /**
+     * 轮询取下一个从节点的模板
+     *
+     * @return RedisTemplate
+     */
+    public RedisTemplate<String, String> next() {
+        return templates.get((next.getAndIncrement() & Integer.MAX_VALUE) % templates.size());
+    }
+
+    @Override
+    public void destroy() {
+        factories.forEach(JedisConnectionFactory::destroy);
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.util.springboot.cache.redis;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+
+/**
+ * @description 带格式头的 redis value 序列化器;
+ * <pre>
+ * 第 1 字节: 1000 cfff  (c = lz4 压缩标记, fff = 格式: 1 json, 2 smile)
+ * 压缩时接 4 字节原始长度(大端), 之后为数据体
+ * </pre>
+ * 旧数据是没有格式头的 json, 首字节一定是 ASCII(最高位为 0), 读取时交给 legacy 序列化器,
+ * 迁移期间新旧数据可以同时读取
+ */
+public class VersionedRedisSerializer implements RedisSerializer<Object> {
+
+    public static final byte FORMAT_JSON = 1;
+
+    public static final byte FORMAT_SMILE = 2;
+
+    private static final int HEADER_MARK = 0x80;
+
+    private static final int COMPRESSED = 0x08;
+
+    private static final int FORMAT_MASK = 0x07;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final byte format;
+
+    private final ObjectMapper jsonMapper;
+
+    private final ObjectMapper smileMapper;
+
+    private final RedisSerializer<Object> legacySerializer;
+
+    private final int compressThreshold;
+
+    /**
+     * @param format 写入使用的格式, {@link #FORMAT_JSON} 或 {@link #FORMAT_SMILE}
+     * @param jsonMapper json 格式的 ObjectMapper
+     * @param smileMapper smile 格式的 ObjectMapper
+     * @param legacySerializer 读取没有格式头的旧数据
+     * @param compressThreshold 序列化后超过该字节数时 lz4 压缩, 小于等于 0 不压缩
+     */
+    public VersionedRedisSerializer(byte format, ObjectMapper jsonMapper, ObjectMapper smileMapper,
+                                    RedisSerializer<Object> legacySerializer, int compressThreshold) {
+        if (format != FORMAT_JSON && format != FORMAT_SMILE) {
+            throw new IllegalArgumentException("unknown serializer format: " + format);
+        }
+        this.format = format;
+        this.jsonMapper = jsonMapper;
+        this.smileMapper = smileMapper;
+        this.legacySerializer = legacySerializer;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] body;
+        try {
+            body = mapper(format).writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write value: " + e.getMessage(), e);
+        }
+        if (compressThreshold > 0 && body.length > compressThreshold) {
+            byte[] compressed = COMPRESSOR.compress(body);
+            if (compressed.length + 4 < body.length) {
+                byte[] result = new byte[compressed.length + 5];
+                result[0] = (byte) (HEADER_MARK | COMPRESSED | format);
+                result[1] = (byte) (body.length >>> 24);
+                result[2] = (byte) (body.length >>> 16);
+                result[3] = (byte) (body.length >>> 8);
+                result[4] = (byte) body.length;
+                System.arraycopy(compressed, 0, result, 5, compressed.length);
+                return result;
+            }
+        }
+        byte[] result = new byte[body.length + 1];
+        result[0] = (byte) (HEADER_MARK | format);
+        System.arraycopy(body, 0, result, 1, body.length);
+        return result;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        int header = bytes[0] & 0xff;
+        if ((header & HEADER_MARK) == 0) {
+            return legacySerializer.deserialize(bytes);
+        }
+        ObjectMapper mapper = mapper((byte) (header & FORMAT_MASK));
+        try {
+            if ((header & COMPRESSED) == 0) {
+                return mapper.readValue(bytes, 1, bytes.length - 1, Object.class);
+            }
+            int length = ((bytes[1] & 0xff) << 24) | ((bytes[2] & 0xff) << 16) | ((bytes[3] & 0xff) << 8) | (bytes[4] & 0xff);
+            byte[] body = DECOMPRESSOR.decompress(bytes, 5, length);
+            return mapper.readValue(body, Object.class);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read value: " + e.getMessage(), e);
+        }
+    }
+
+    private ObjectMapper mapper(byte format) {
+        if (format == FORMAT_JSON) {
+            return jsonMapper;
+        }
+        if (format == FORMAT_SMILE) {
+            return smileMapper;
+        }
+        throw new SerializationException("unknown serializer format: " + format);
+    }
+
+}
@@ -0,0 +1,161 @@
+package com.util.springboot.cache.support;
+
+import com.util.springboot.cache.redis.RedisScripts;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheElement;
+import org.springframework.data.redis.cache.RedisCacheKey;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @description 支持过期抖动和最大 key 数量的 redis 缓存;
+ * 过期抖动让同一批写入的 key 分散过期, 避免集中失效;
+ * 配置了最大 key 数量时, 每次写入用 lua 脚本原子地登记写入时间并弹出超出数量的最早写入的 key, 再删除这些 key;
+ * 删除、清空以及写入 null 时同步维护索引
+ */
+public class BoundedRedisCache extends RedisCache {
+
+    /**
+     * KEYS[1] 索引 zset, ARGV[1] 缓存 key, ARGV[2] 当前毫秒, ARGV[3] 最大 key 数量, ARGV[4] 索引过期秒数(0 不过期);
+     * 登记写入时间, 从索引中弹出超出数量的最早写入的 key 并返回, 由调用方删除.
+     * 脚本只访问 KEYS[1]: 集群模式下缓存 key 分散在不同 slot, 在脚本中删除会报 CROSSSLOT
+     */
+    private static final DefaultRedisScript<List> TRIM_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('zadd', KEYS[1], ARGV[2], ARGV[1]) "
+                    + "local overflow = redis.call('zcard', KEYS[1]) - tonumber(ARGV[3]) "
+                    + "local victims = {} "
+                    + "if overflow > 0 then "
+                    + "  victims = redis.call('zrange', KEYS[1], 0, overflow - 1) "
+                    + "  redis.call('zremrangebyrank', KEYS[1], 0, overflow - 1) "
+                    + "end "
+                    + "if tonumber(ARGV[4]) > 0 then redis.call('expire', KEYS[1], ARGV[4]) end "
+                    + "return victims", List.class);
+
+    private final byte[] prefix;
+
+    private final RedisOperations redisOperations;
+
+    private final long expiration;
+
+    private final double jitter;
+
+    private final long maxKeys;
+
+    private final byte[] indexKey;
+
+    /** 未使用前缀时 RedisCache 登记已知 key 的 zset, 淘汰时同步移除; 使用前缀时为 null */
+    private final byte[] knownKeysKey;
+
+    public BoundedRedisCache(String name, byte[] prefix, RedisOperations<?, ?> redisOperations,
+                             long expiration, double jitter, long maxKeys) {
+        super(name, prefix, redisOperations, expiration);
+        this.prefix = prefix;
+        this.redisOperations = redisOperations;
+        this.expiration = expiration;
+        this.jitter = jitter;
+        this.maxKeys = maxKeys;
+        this.indexKey = (name + "~index").getBytes(StandardCharsets.UTF_8);
+        this.knownKeysKey = prefix == null || prefix.length == 0 ? (name + "~keys").getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    /**
+     * RedisCache 写入 null 时删除 key, 这里同样按删除处理, 同时从索引中移除
+     */
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        RedisCacheKey cacheKey = cacheKey(key);
+        put(new RedisCacheElement(cacheKey, value).expireAfter(nextExpiration()));
+        trim(cacheKey);
+    }
+
+    /**
+     * null 不写入, 只返回已有的值
+     */
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        if (value == null) {
+            return get(key);
+        }
+        RedisCacheKey cacheKey = cacheKey(key);
+        ValueWrapper existing = putIfAbsent(new RedisCacheElement(cacheKey, value).expireAfter(nextExpiration()));
+        if (existing == null) {
+            trim(cacheKey);
+        }
+        return existing;
+    }
+
+    /**
+     * evict(Object) 也会走到这里
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void evict(RedisCacheElement element) {
+        super.evict(element);
+        if (maxKeys > 0) {
+            final byte[] keyBytes = element.getKeyBytes();
+            redisOperations.execute((RedisCallback<Long>) connection -> connection.zRem(indexKey, keyBytes));
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void clear() {
+        super.clear();
+        if (maxKeys > 0) {
+            redisOperations.execute((RedisCallback<Long>) connection -> connection.del(indexKey));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private RedisCacheKey cacheKey(Object key) {
+        return new RedisCacheKey(key).usePrefix(prefix).withKeySerializer(redisOperations.getKeySerializer());
+    }
+
+    /**
+     * 过期时间只向后抖动, 不会短于配置的 ttl
+     */
+    private long nextExpiration() {
+        if (expiration <= 0 || jitter <= 0) {
+            return expiration;
+        }
+        return expiration + (long) (ThreadLocalRandom.current().nextDouble() * expiration * jitter);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void trim(RedisCacheKey cacheKey) {
+        if (maxKeys <= 0) {
+            return;
+        }
+        final byte[][] keysAndArgs = {
+                indexKey,
+                cacheKey.getKeyBytes(),
+                RedisScripts.bytes(System.currentTimeMillis()),
+                RedisScripts.bytes(maxKeys),
+                RedisScripts.bytes(expiration > 0 ? (long) (expiration * (1 + jitter)) + 1 : 0)
+        };
+        redisOperations.execute((RedisCallback<Void>) connection -> {
+            List<byte[]> victims = RedisScripts.eval(connection, TRIM_SCRIPT, ReturnType.MULTI, 1, keysAndArgs);
+            if (victims == null || victims.isEmpty()) {
+                return null;
+            }
+            byte[][] rawVictims = victims.toArray(new byte[victims.size()][]);
+            // 集群连接会按 slot 拆分多 key 的 DEL
+            connection.del(rawVictims);
+            if (knownKeysKey != null) {
+                connection.zRem(knownKeysKey, rawVictims);
+            }
+            return null;
+        });
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.util.springboot.cache.support;
+
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.RedisOperations;
+
+/**
+ * @description 按 {@link CacheSettings} 为每个缓存设置过期时间、过期抖动和最大 key 数量的 redis 缓存管理器
+ */
+public class BoundedRedisCacheManager extends RedisCacheManager {
+
+    private final CacheSettings cacheSettings;
+
+    public BoundedRedisCacheManager(RedisOperations redisOperations, CacheSettings cacheSettings) {
+        super(redisOperations);
+        this.cacheSettings = cacheSettings;
+        setDefaultExpiration(cacheSettings.getDefaultExpiration());
+        setExpires(cacheSettings.getExpires());
+    }
+
+    @Override
+    protected RedisCache createCache(String cacheName) {
+        return new BoundedRedisCache(cacheName, isUsePrefix() ? getCachePrefix().prefix(cacheName) : null,
+                getRedisOperations(), computeExpiration(cacheName),
+                cacheSettings.jitterOf(cacheName), cacheSettings.maxKeysOf(cacheName));
+    }
+
+}
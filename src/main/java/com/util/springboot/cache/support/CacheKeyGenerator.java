@@ -0,0 +1,183 @@
+package com.util.springboot.cache.support;
+
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * @description 缓存 key 生成策略: 类名.方法名 + ':' + 带类型标记的参数编码;
+ * <ul>
+ * <li>每个 (类, 方法) 的前缀只计算一次, 无参方法直接返回前缀, 不产生新对象</li>
+ * <li>字符串等变长参数带长度前缀, 参数之间用 ',' 分隔, 编码可唯一解析, 不同参数不会拼出相同的 key</li>
+ * <li>null、数组、集合、Map 都有单独的类型标记</li>
+ * <li>超过长度上限的 key 把参数部分替换为 SHA-256 摘要</li>
+ * </ul>
+ */
+public class CacheKeyGenerator implements KeyGenerator {
+
+    /** 默认 key 长度上限, 超过后参数部分使用摘要 */
+    public static final int DEFAULT_MAX_KEY_LENGTH = 256;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ClassValue<ConcurrentMap<Method, String>> PREFIXES = new ClassValue<ConcurrentMap<Method, String>>() {
+        @Override
+        protected ConcurrentMap<Method, String> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(128));
+
+    private final int maxKeyLength;
+
+    public CacheKeyGenerator() {
+        this(DEFAULT_MAX_KEY_LENGTH);
+    }
+
+    public CacheKeyGenerator(int maxKeyLength) {
+        this.maxKeyLength = maxKeyLength;
+    }
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        String prefix = prefix(target.getClass(), method);
+        if (params == null || params.length == 0) {
+            return prefix;
+        }
+        StringBuilder sb = BUFFER.get();
+        if (sb.capacity() > maxKeyLength * 4) {
+            // 偶发的超长参数不应让线程一直持有大缓冲区
+            sb = new StringBuilder(128);
+            BUFFER.set(sb);
+        }
+        sb.setLength(0);
+        sb.append(prefix).append(':');
+        for (int i = 0; i < params.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            encode(sb, params[i]);
+        }
+        if (sb.length() <= maxKeyLength) {
+            return sb.toString();
+        }
+        return prefix + ":#" + sha256(sb.substring(prefix.length() + 1));
+    }
+
+    /**
+     * 前缀: 目标类全名.方法名; 方法在目标类中有重载时追加参数类型签名的哈希, 区分重载
+     */
+    static String prefix(Class<?> targetClass, Method method) {
+        ConcurrentMap<Method, String> prefixes = PREFIXES.get(targetClass);
+        String prefix = prefixes.get(method);
+        if (prefix == null) {
+            prefix = targetClass.getName() + '.' + method.getName();
+            if (isOverloaded(targetClass, method)) {
+                StringBuilder signature = new StringBuilder();
+                for (Class<?> type : method.getParameterTypes()) {
+                    signature.append(type.getName()).append(',');
+                }
+                prefix = prefix + '~' + Integer.toHexString(signature.toString().hashCode());
+            }
+            String existing = prefixes.putIfAbsent(method, prefix);
+            if (existing != null) {
+                prefix = existing;
+            }
+        }
+        return prefix;
+    }
+
+    private static boolean isOverloaded(Class<?> targetClass, Method method) {
+        int count = 0;
+        for (Method candidate : targetClass.getMethods()) {
+            if (candidate.getName().equals(method.getName()) && ++count > 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void encode(StringBuilder sb, Object param) {
+        if (param == null) {
+            sb.append('n');
+        } else if (param instanceof String) {
+            appendSized(sb, 's', (String) param);
+        } else if (param instanceof Integer || param instanceof Long || param instanceof Short || param instanceof Byte) {
+            sb.append('i').append(((Number) param).longValue());
+        } else if (param instanceof Boolean) {
+            sb.append((Boolean) param ? 't' : 'f');
+        } else if (param instanceof Double || param instanceof Float) {
+            sb.append('d').append(((Number) param).doubleValue());
+        } else if (param instanceof Character) {
+            sb.append('c').append((char) (Character) param);
+        } else if (param instanceof Enum) {
+            appendSized(sb, 'e', ((Enum<?>) param).name());
+        } else if (param.getClass().isArray()) {
+            int length = Array.getLength(param);
+            sb.append('[').append(length).append(':');
+            for (int i = 0; i < length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                encode(sb, Array.get(param, i));
+            }
+            sb.append(']');
+        } else if (param instanceof Collection) {
+            Collection<?> collection = (Collection<?>) param;
+            sb.append('l').append(collection.size()).append(':');
+            boolean first = true;
+            for (Object element : collection) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                encode(sb, element);
+            }
+            sb.append(']');
+        } else if (param instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) param;
+            sb.append('m').append(map.size()).append(':');
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                first = false;
+                encode(sb, entry.getKey());
+                sb.append('=');
+                encode(sb, entry.getValue());
+            }
+            sb.append(']');
+        } else {
+            appendSized(sb, 'o', param.toString());
+        }
+    }
+
+    private static void appendSized(StringBuilder sb, char type, String value) {
+        sb.append(type).append(value.length()).append(':').append(value);
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX[(digest[i] >> 4) & 0x0f];
+                hex[i * 2 + 1] = HEX[digest[i] & 0x0f];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.util.springboot.cache.support;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @description 两级缓存按级别统计的命中/未命中次数
+ */
+public class CacheLevelStats {
+
+    private final LongAdder l1Hits = new LongAdder();
+
+    private final LongAdder l1Misses = new LongAdder();
+
+    private final LongAdder l2Hits = new LongAdder();
+
+    private final LongAdder l2Misses = new LongAdder();
+
+    void recordL1Hit() {
+        l1Hits.increment();
+    }
+
+    void recordL1Miss() {
+        l1Misses.increment();
+    }
+
+    void recordL2Hit() {
+        l2Hits.increment();
+    }
+
+    void recordL2Miss() {
+        l2Misses.increment();
+    }
+
+    public long getL1Hits() {
+        return l1Hits.sum();
+    }
+
+    public long getL1Misses() {
+        return l1Misses.sum();
+    }
+
+    public long getL2Hits() {
+        return l2Hits.sum();
+    }
+
+    public long getL2Misses() {
+        return l2Misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        long l1Hit = getL1Hits();
+        long l1Miss = getL1Misses();
+        long l2Hit = getL2Hits();
+        long l2Miss = getL2Misses();
+        return "l1[hit=" + l1Hit + ", miss=" + l1Miss + ", rate=" + rate(l1Hit, l1Miss) + "]"
+                + " l2[hit=" + l2Hit + ", miss=" + l2Miss + ", rate=" + rate(l2Hit, l2Miss) + "]";
+    }
+
+    private static String rate(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? "-" : String.format("%.2f%%", hits * 100.0 / total);
+    }
+
+}
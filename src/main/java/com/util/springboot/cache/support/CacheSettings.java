@@ -0,0 +1,196 @@
+package com.util.springboot.cache.support;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @description 缓存配置, 在 cache/redis.properties 中以 cache.* 前缀配置;
+ * 一级缓存使用 caffeine spec 格式, 例如 maximumSize=1000,expireAfterWrite=60s;
+ * 二级(redis)缓存可按缓存名配置过期时间、过期抖动和最大 key 数量
+ */
+@Component
+@ConfigurationProperties(prefix = "cache")
+public class CacheSettings {
+
+    /** 未单独配置的缓存使用的一级缓存 spec */
+    private String localDefault = "maximumSize=1000,expireAfterWrite=60s";
+
+    /** 按缓存名配置的一级缓存 spec */
+    private Map<String, String> local = new HashMap<>();
+
+    /** redis 缓存默认过期时间(秒), 0 表示永不过期 */
+    private long defaultExpiration = 3600;
+
+    /** 按缓存名配置的 redis 过期时间(秒) */
+    private Map<String, Long> expires = new HashMap<>();
+
+    /** 默认过期抖动比例, 0 表示不抖动 */
+    private double defaultJitter = 0;
+
+    /** 按缓存名配置的过期抖动比例, 实际过期时间在 [ttl, ttl * (1 + jitter)] 之间随机 */
+    private Map<String, Double> jitter = new HashMap<>();
+
+    /** 按缓存名配置的最大 key 数量, 超出时淘汰最早写入的 key; 未配置表示不限制 */
+    private Map<String, Long> maxKeys = new HashMap<>();
+
+    /**
+     * 按缓存名配置的提前刷新系数 beta, 只对 @Cacheable(sync = true) 生效;
+     * 越大越早刷新, 1.0 为推荐值, 未配置表示不提前刷新
+     */
+    private Map<String, Double> refreshAhead = new HashMap<>();
+
+    /** 按缓存名配置是否在集群内只由一个节点加载(redis 锁), 未配置表示只在本节点内单飞 */
+    private Map<String, Boolean> distributedLoad = new HashMap<>();
+
+    /** 集群加载锁的超时时间(秒), 也是其他节点等待加载结果的最长时间 */
+    private long loadLockTimeout = 10;
+
+    public String getLocalDefault() {
+        return localDefault;
+    }
+
+    public void setLocalDefault(String localDefault) {
+        this.localDefault = localDefault;
+    }
+
+    public Map<String, String> getLocal() {
+        return local;
+    }
+
+    public void setLocal(Map<String, String> local) {
+        this.local = local;
+    }
+
+    public long getDefaultExpiration() {
+        return defaultExpiration;
+    }
+
+    public void setDefaultExpiration(long defaultExpiration) {
+        this.defaultExpiration = defaultExpiration;
+    }
+
+    public Map<String, Long> getExpires() {
+        return expires;
+    }
+
+    public void setExpires(Map<String, Long> expires) {
+        this.expires = expires;
+    }
+
+    public double getDefaultJitter() {
+        return defaultJitter;
+    }
+
+    public void setDefaultJitter(double defaultJitter) {
+        this.defaultJitter = defaultJitter;
+    }
+
+    public Map<String, Double> getJitter() {
+        return jitter;
+    }
+
+    public void setJitter(Map<String, Double> jitter) {
+        this.jitter = jitter;
+    }
+
+    public Map<String, Long> getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(Map<String, Long> maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public Map<String, Double> getRefreshAhead() {
+        return refreshAhead;
+    }
+
+    public void setRefreshAhead(Map<String, Double> refreshAhead) {
+        this.refreshAhead = refreshAhead;
+    }
+
+    public Map<String, Boolean> getDistributedLoad() {
+        return distributedLoad;
+    }
+
+    public void setDistributedLoad(Map<String, Boolean> distributedLoad) {
+        this.distributedLoad = distributedLoad;
+    }
+
+    public long getLoadLockTimeout() {
+        return loadLockTimeout;
+    }
+
+    public void setLoadLockTimeout(long loadLockTimeout) {
+        this.loadLockTimeout = loadLockTimeout;
+    }
+
+    /**
+     * 获取指定缓存的一级缓存 spec
+     *
+     * @param cacheName 缓存名
+     * @return caffeine spec
+     */
+    public String localSpec(String cacheName) {
+        String spec = local.get(cacheName);
+        return spec != null ? spec : localDefault;
+    }
+
+    /**
+     * 获取指定缓存的过期抖动比例
+     *
+     * @param cacheName 缓存名
+     * @return 抖动比例
+     */
+    public double jitterOf(String cacheName) {
+        Double value = jitter.get(cacheName);
+        return value != null ? value : defaultJitter;
+    }
+
+    /**
+     * 获取指定缓存的最大 key 数量
+     *
+     * @param cacheName 缓存名
+     * @return 最大 key 数量, 0 表示不限制
+     */
+    public long maxKeysOf(String cacheName) {
+        Long value = maxKeys.get(cacheName);
+        return value != null ? value : 0;
+    }
+
+    /**
+     * 获取指定缓存的 redis 过期时间
+     *
+     * @param cacheName 缓存名
+     * @return 过期时间(秒), 0 表示永不过期
+     */
+    public long expirationOf(String cacheName) {
+        Long value = expires.get(cacheName);
+        return value != null ? value : defaultExpiration;
+    }
+
+    /**
+     * 获取指定缓存的提前刷新系数
+     *
+     * @param cacheName 缓存名
+     * @return beta, 0 表示不提前刷新
+     */
+    public double refreshAheadOf(String cacheName) {
+        Double value = refreshAhead.get(cacheName);
+        return value != null ? value : 0;
+    }
+
+    /**
+     * 指定缓存是否在集群内只由一个节点加载
+     *
+     * @param cacheName 缓存名
+     * @return boolean
+     */
+    public boolean isDistributedLoad(String cacheName) {
+        return Boolean.TRUE.equals(distributedLoad.get(cacheName));
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.util.springboot.cache.support;
+
+import java.io.Serializable;
+
+/**
+ * @description 开启提前刷新的缓存在 redis 中保存的值: 原始值 + 写入时间 + 计算耗时,
+ * 用于按概率提前刷新(XFetch): 计算越慢、离过期越近, 越早触发后台刷新
+ */
+public class StampedValue implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Object value;
+
+    /** 写入时间(毫秒) */
+    private long writtenAt;
+
+    /** 计算该值的耗时(毫秒) */
+    private long computeMillis;
+
+    StampedValue() {
+    }
+
+    StampedValue(Object value, long writtenAt, long computeMillis) {
+        this.value = value;
+        this.writtenAt = writtenAt;
+        this.computeMillis = computeMillis;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public long getWrittenAt() {
+        return writtenAt;
+    }
+
+    public long getComputeMillis() {
+        return computeMillis;
+    }
+
+}
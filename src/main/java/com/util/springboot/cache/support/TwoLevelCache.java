@@ -0,0 +1,292 @@
+package com.util.springboot.cache.support;
+
+import com.util.springboot.cache.redis.RedisLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description 两级缓存: 一级为进程内 caffeine, 二级为 redis;
+ * 读取先查一级, 未命中再查二级并回填一级; 写入和删除同时作用于两级,
+ * 并通过 {@link TwoLevelCacheManager} 通知其他节点清除各自的一级缓存.
+ * <p>
+ * 对 @Cacheable(sync = true) 走的 {@link #get(Object, Callable)} 做了防击穿处理:
+ * <ul>
+ * <li>同一个 key 在本节点同时只有一个线程执行加载, 其余线程等待同一个结果</li>
+ * <li>开启 distributed-load 时加载前先抢 redis 锁, 抢不到的节点等锁释放后从二级缓存读取结果</li>
+ * <li>开启 refresh-ahead 时按 XFetch 概率在过期前后台刷新, 刷新期间继续返回旧值</li>
+ * </ul>
+ */
+public class TwoLevelCache implements Cache {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    /** 一级缓存中代表 null 值的占位对象, caffeine 不能存 null */
+    private static final Object NULL_VALUE = new Object();
+
+    private final String name;
+
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> l1;
+
+    private final Cache l2;
+
+    private final TwoLevelCacheManager cacheManager;
+
+    private final CacheLevelStats stats = new CacheLevelStats();
+
+    /** 正在加载的 key, 用于单飞 */
+    private final ConcurrentMap<Object, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    /** 二级缓存过期时间(毫秒), 0 表示不过期 */
+    private final long ttlMillis;
+
+    /** 提前刷新系数, 0 表示不提前刷新 */
+    private final double refreshAhead;
+
+    private final boolean distributedLoad;
+
+    public TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> l1, Cache l2,
+                         TwoLevelCacheManager cacheManager, long ttlMillis, double refreshAhead, boolean distributedLoad) {
+        this.name = name;
+        this.l1 = l1;
+        this.l2 = l2;
+        this.cacheManager = cacheManager;
+        this.ttlMillis = ttlMillis;
+        this.refreshAhead = ttlMillis > 0 ? refreshAhead : 0;
+        this.distributedLoad = distributedLoad;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object stored = lookup(key);
+        return stored == null ? null : new SimpleValueWrapper(unwrap(stored));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object stored = lookup(key);
+        if (stored != null) {
+            if (stored instanceof StampedValue && shouldRefreshEarly((StampedValue) stored)) {
+                refreshAsync(key, valueLoader);
+            }
+            return (T) unwrap(stored);
+        }
+        return (T) load(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        store(key, value, 0);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object toStore = refreshAhead > 0 ? new StampedValue(value, System.currentTimeMillis(), 0) : value;
+        ValueWrapper existing = l2.putIfAbsent(key, toStore);
+        if (existing != null) {
+            l1.put(key, toStoreValue(existing.get()));
+            return new SimpleValueWrapper(unwrap(toStoreValue(existing.get())));
+        }
+        l1.put(key, toStoreValue(toStore));
+        cacheManager.publishEvict(name, key);
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        l2.evict(key);
+        l1.invalidate(key);
+        cacheManager.publishEvict(name, key);
+    }
+
+    @Override
+    public void clear() {
+        l2.clear();
+        l1.invalidateAll();
+        cacheManager.publishClear(name);
+    }
+
+    /**
+     * 只清除本节点一级缓存中的 key, 由其他节点的失效广播触发
+     *
+     * @param key 缓存 key
+     */
+    public void evictLocal(Object key) {
+        l1.invalidate(key);
+    }
+
+    /**
+     * 只清空本节点的一级缓存, 由其他节点的失效广播触发
+     */
+    public void clearLocal() {
+        l1.invalidateAll();
+    }
+
+    public CacheLevelStats getStats() {
+        return stats;
+    }
+
+    /**
+     * 依次查询两级缓存, 返回存储形式的值(可能是 NULL_VALUE 或 StampedValue), 不存在返回 null
+     */
+    private Object lookup(Object key) {
+        Object local = l1.getIfPresent(key);
+        if (local != null) {
+            stats.recordL1Hit();
+            return local;
+        }
+        stats.recordL1Miss();
+        ValueWrapper wrapper = l2.get(key);
+        if (wrapper == null) {
+            stats.recordL2Miss();
+            return null;
+        }
+        stats.recordL2Hit();
+        Object stored = toStoreValue(wrapper.get());
+        l1.put(key, stored);
+        return stored;
+    }
+
+    private void store(Object key, Object value, long computeMillis) {
+        Object toStore = refreshAhead > 0 ? new StampedValue(value, System.currentTimeMillis(), computeMillis) : value;
+        l2.put(key, toStore);
+        l1.put(key, toStoreValue(toStore));
+        cacheManager.publishEvict(name, key);
+    }
+
+    /**
+     * 单飞加载: 同一个 key 只有第一个线程执行加载, 其他线程等待它的结果
+     */
+    private Object load(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ValueRetrievalException(key, valueLoader, e);
+            } catch (ExecutionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+        try {
+            Object value = distributedLoad ? loadWithLock(key, valueLoader) : compute(key, valueLoader);
+            future.complete(value);
+            return value;
+        } catch (Throwable ex) {
+            future.completeExceptionally(ex);
+            throw ex instanceof ValueRetrievalException ? (ValueRetrievalException) ex
+                    : new ValueRetrievalException(key, valueLoader, ex);
+        } finally {
+            loading.remove(key, future);
+        }
+    }
+
+    /**
+     * 集群内单飞: 抢到 redis 锁的节点加载; 其他节点阻塞到锁释放(收到释放广播即唤醒),
+     * 拿到锁后先读二级缓存, 已由其他节点写入时直接使用; 等待超时后自行加载
+     */
+    private Object loadWithLock(Object key, Callable<?> valueLoader) throws Exception {
+        String lockName = "cache:" + name + ":" + key;
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(cacheManager.getLoadLockTimeout());
+        try (RedisLock.Lease lease = cacheManager.getRedisLock().tryLock(lockName, timeoutMillis, TimeUnit.MILLISECONDS)) {
+            if (lease == null) {
+                log.warn("ZGH20130: wait cache loader timeout, load locally, cache = {}, key = {}", name, key);
+                return compute(key, valueLoader);
+            }
+            ValueWrapper wrapper = l2.get(key);
+            if (wrapper != null) {
+                Object stored = toStoreValue(wrapper.get());
+                l1.put(key, stored);
+                return unwrap(stored);
+            }
+            return compute(key, valueLoader);
+        }
+    }
+
+    private Object compute(Object key, Callable<?> valueLoader) throws Exception {
+        long start = System.nanoTime();
+        Object value = valueLoader.call();
+        store(key, value, Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        return value;
+    }
+
+    /**
+     * XFetch: now - delta * beta * ln(rand) >= expiry 时提前刷新, rand 取 (0, 1]
+     */
+    private boolean shouldRefreshEarly(StampedValue stamped) {
+        if (refreshAhead <= 0 || stamped.getComputeMillis() <= 0) {
+            return false;
+        }
+        double rand = 1.0 - ThreadLocalRandom.current().nextDouble();
+        double gap = -stamped.getComputeMillis() * refreshAhead * Math.log(rand);
+        return System.currentTimeMillis() + gap >= stamped.getWrittenAt() + ttlMillis;
+    }
+
+    private void refreshAsync(Object key, Callable<?> valueLoader) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (loading.putIfAbsent(key, future) != null) {
+            return;
+        }
+        try {
+            cacheManager.getRefreshExecutor().execute(() -> {
+                try {
+                    future.complete(compute(key, valueLoader));
+                } catch (Throwable ex) {
+                    future.completeExceptionally(ex);
+                    log.warn("ZGH20140: refresh ahead failed, cache = {}, key = {}", name, key, ex);
+                } finally {
+                    loading.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.remove(key, future);
+            future.cancel(false);
+        }
+    }
+
+    private static Object toStoreValue(Object value) {
+        return value == null ? NULL_VALUE : value;
+    }
+
+    private static Object unwrap(Object stored) {
+        Object value = stored instanceof StampedValue ? ((StampedValue) stored).getValue() : stored;
+        // 二级缓存允许存 null 时读到的是 NullValue
+        return value == NULL_VALUE || value instanceof NullValue ? null : value;
+    }
+
+}
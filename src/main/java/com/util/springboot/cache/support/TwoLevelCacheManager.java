@@ -0,0 +1,171 @@
+package com.util.springboot.cache.support;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.util.springboot.cache.redis.RedisLock;
+import com.util.springboot.cache.redis.RedisUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description 两级缓存管理器, 在 redis 缓存管理器前加一层有界的进程内缓存;
+ * 各节点的一级缓存通过 redis 发布/订阅保持一致: 任一节点 put/evict/clear 时广播失效消息,
+ * 其他节点收到后只清除本地一级缓存, 下次读取从二级重新加载
+ */
+public class TwoLevelCacheManager implements CacheManager, MessageListener, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    /** 一级缓存失效广播频道 */
+    public static final String INVALIDATE_CHANNEL = "cache:invalidate:l1";
+
+    private static final String SEPARATOR = "|";
+
+    private static final String OP_EVICT = "E";
+
+    private static final String OP_CLEAR = "C";
+
+    /** 本节点标识, 用于忽略自己发出的广播 */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    private final CacheManager l2CacheManager;
+
+    private final CacheSettings cacheSettings;
+
+    private final RedisUtil redisUtil;
+
+    private final RedisLock redisLock;
+
+    /** 提前刷新使用的后台线程池, 队列满时放弃本次提前刷新, 由正常过期兜底 */
+    private final ThreadPoolExecutor refreshExecutor = new ThreadPoolExecutor(1, 4, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(256), runnable -> {
+                Thread thread = new Thread(runnable, "cache-refresh");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+
+    public TwoLevelCacheManager(CacheManager l2CacheManager, CacheSettings cacheSettings, RedisUtil redisUtil,
+                                RedisLock redisLock) {
+        this.l2CacheManager = l2CacheManager;
+        this.cacheSettings = cacheSettings;
+        this.redisUtil = redisUtil;
+        this.redisLock = redisLock;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache l2 = l2CacheManager.getCache(name);
+        if (l2 == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new TwoLevelCache(cacheName,
+                Caffeine.from(cacheSettings.localSpec(cacheName)).build(), l2, this,
+                TimeUnit.SECONDS.toMillis(cacheSettings.expirationOf(cacheName)),
+                cacheSettings.refreshAheadOf(cacheName), cacheSettings.isDistributedLoad(cacheName)));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * 各缓存按级别的命中统计
+     *
+     * @return 缓存名 -> 统计
+     */
+    public Map<String, CacheLevelStats> getStats() {
+        Map<String, CacheLevelStats> stats = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> stats.put(name, cache.getStats()));
+        return stats;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    RedisLock getRedisLock() {
+        return redisLock;
+    }
+
+    long getLoadLockTimeout() {
+        return cacheSettings.getLoadLockTimeout();
+    }
+
+    Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    @Scheduled(fixedDelayString = "${cache.stats-log-interval:300000}")
+    public void logStats() {
+        caches.forEach((name, cache) -> log.info("ZGH20110: cache [{}] {}", name, cache.getStats()));
+    }
+
+    void publishEvict(String cacheName, Object key) {
+        // redis 缓存的 key 经 StringRedisSerializer 序列化, 正常情况下都是字符串; 其他类型的 key 无法广播, 退化为清空
+        if (key instanceof String) {
+            publish(OP_EVICT, cacheName, (String) key);
+        } else {
+            publishClear(cacheName);
+        }
+    }
+
+    void publishClear(String cacheName) {
+        publish(OP_CLEAR, cacheName, "");
+    }
+
+    private void publish(String op, String cacheName, String key) {
+        try {
+            redisUtil.publish(INVALIDATE_CHANNEL, nodeId + SEPARATOR + op + SEPARATOR + cacheName + SEPARATOR + key);
+        } catch (Exception e) {
+            log.warn("ZGH20120: publish l1 invalidation failed, cache = {}, key = {}", cacheName, key, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length != 4 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+        if (OP_EVICT.equals(parts[1])) {
+            cache.evictLocal(parts[3]);
+        } else if (OP_CLEAR.equals(parts[1])) {
+            cache.clearLocal();
+        }
+    }
+
+}
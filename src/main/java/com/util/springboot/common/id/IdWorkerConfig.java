@@ -0,0 +1,54 @@
+package com.util.springboot.common.id;
+
+import com.util.springboot.cache.redis.RedisUtil;
+import com.util.springboot.common.utils.IdWorker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * @description IdWorker 配置: 默认从 redis 租用 workerId/datacenterId, 水平扩容时无需人工分配;
+ * 租约续期失败或丢失时 IdWorker 停止生成 id;
+ * idworker.lease.enabled=false 时使用 idworker.worker-id / idworker.datacenter-id 固定值.
+ * 创建后安装为 {@link IdWorker} 静态方法使用的实例
+ */
+@Configuration
+public class IdWorkerConfig {
+
+    @Value("${idworker.max-backward-millis:" + IdWorker.DEFAULT_MAX_BACKWARD_MILLIS + "}")
+    private long maxBackwardMillis;
+
+    @Bean
+    @ConditionalOnProperty(name = "idworker.lease.enabled", havingValue = "true", matchIfMissing = true)
+    public WorkerIdLease workerIdLease(RedisUtil redisUtil, @Value("${idworker.lease.ttl:30}") long ttlSeconds,
+                                       @Value("${idworker.lease.max-clock-skew:1000}") long maxClockSkewMillis) {
+        WorkerIdLease lease = new WorkerIdLease(redisUtil, ttlSeconds, maxBackwardMillis, maxClockSkewMillis, Clock.systemUTC());
+        lease.acquire();
+        return lease;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "idworker.lease.enabled", havingValue = "true", matchIfMissing = true)
+    public IdWorker idWorker(WorkerIdLease workerIdLease) {
+        IdWorker idWorker = new IdWorker(workerIdLease.getWorkerId(), workerIdLease.getDatacenterId(),
+                Clock.systemUTC(), maxBackwardMillis);
+        workerIdLease.bind(idWorker);
+        return install(idWorker);
+    }
+
+    @Bean(name = "idWorker")
+    @ConditionalOnProperty(name = "idworker.lease.enabled", havingValue = "false")
+    public IdWorker fixedIdWorker(@Value("${idworker.worker-id}") long workerId,
+                                  @Value("${idworker.datacenter-id}") long datacenterId) {
+        return install(new IdWorker(workerId, datacenterId, Clock.systemUTC(), maxBackwardMillis));
+    }
+
+    private static IdWorker install(IdWorker idWorker) {
+        IdWorker.install(idWorker);
+        return idWorker;
+    }
+
+}
@@ -0,0 +1,225 @@
+package com.util.springboot.common.id;
+
+import com.util.springboot.cache.redis.RedisUtil;
+import com.util.springboot.common.utils.IdWorker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.lang.management.ManagementFactory;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @description 从 redis 租用一个 IdWorker 槽位(datacenterId << 5 | workerId, 共 1024 个),
+ * 每个槽位对应一个带过期时间的 key, 心跳续期, 关闭时释放; 进程异常退出时槽位在 ttl 后自动回收.
+ * 每个槽位另有一个不过期的水位 key, 记录持有者可能用到的最大时间戳(续期截止时间 + 可借用的未来时间),
+ * 只增不减; 新持有者的时钟越过水位 + 时钟偏差之前不能用该槽位生成 id, 空闲槽位中优先选择已越过水位的.
+ * 租约只在续期成功后才延长 IdWorker 的可用时间, 续期持续失败或槽位被其他节点占用时 IdWorker 停止生成 id
+ */
+public class WorkerIdLease implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerIdLease.class);
+
+    private static final String KEY_PREFIX = "idworker:slot:";
+
+    private static final String WATERMARK_SUFFIX = ":issued";
+
+    /** 5 位 datacenterId + 5 位 workerId */
+    public static final int SLOT_COUNT = 1024;
+
+    private final RedisUtil redisUtil;
+
+    private final long ttlSeconds;
+
+    /** IdWorker 可向未来借用的毫秒数 */
+    private final long maxBackwardMillis;
+
+    /** 节点间容忍的时钟偏差 */
+    private final long maxClockSkewMillis;
+
+    private final Clock clock;
+
+    /** 写入槽位 key 的值, 用于续期和释放时确认仍是自己持有 */
+    private final String owner;
+
+    private final ScheduledExecutorService heartbeat = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "idworker-lease");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile int slot = -1;
+
+    /** 最近一次续期成功后允许生成 id 的截止时间, 只在 this 上同步修改 */
+    private long validUntil = Long.MIN_VALUE;
+
+    /** 重新占用过期槽位后, 时钟越过该时间才恢复生成 id */
+    private long resumeAfter = Long.MIN_VALUE;
+
+    private IdWorker idWorker;
+
+    public WorkerIdLease(RedisUtil redisUtil, long ttlSeconds, long maxBackwardMillis, long maxClockSkewMillis, Clock clock) {
+        this.redisUtil = redisUtil;
+        this.ttlSeconds = ttlSeconds;
+        this.maxBackwardMillis = maxBackwardMillis;
+        this.maxClockSkewMillis = maxClockSkewMillis;
+        this.clock = clock;
+        this.owner = ManagementFactory.getRuntimeMXBean().getName() + ":" + UUID.randomUUID();
+    }
+
+    /**
+     * 从随机位置开始依次尝试, 优先占用已越过水位的空闲槽位后开始心跳;
+     * 所有空闲槽位都未越过水位时占用最早越过的一个, 等待越过后返回
+     *
+     * @return 槽位
+     * @throws IllegalStateException 所有槽位都已被占用
+     */
+    public int acquire() {
+        int start = ThreadLocalRandom.current().nextInt(SLOT_COUNT);
+        int cooling = -1;
+        long coolingUntil = Long.MAX_VALUE;
+        for (int i = 0; i < SLOT_COUNT; i++) {
+            int candidate = (start + i) % SLOT_COUNT;
+            if (!tryLease(candidate)) {
+                continue;
+            }
+            long reusableAfter = reusableAfter(candidate);
+            if (clock.millis() > reusableAfter) {
+                start(candidate);
+                return candidate;
+            }
+            redisUtil.compareAndDelete(KEY_PREFIX + candidate, owner);
+            if (reusableAfter < coolingUntil) {
+                cooling = candidate;
+                coolingUntil = reusableAfter;
+            }
+        }
+        if (cooling >= 0 && tryLease(cooling)) {
+            // start 会把水位抬高到本节点的续期截止时间, 需要在此之前读出上一个持有者的水位
+            long reusableAfter = reusableAfter(cooling);
+            start(cooling);
+            log.warn("ZGH01330: no idle idworker slot past its watermark, wait for slot {} until {}", cooling, reusableAfter);
+            sleepUntil(reusableAfter);
+            return cooling;
+        }
+        throw new IllegalStateException("no free idworker slot in redis, all " + SLOT_COUNT + " are leased");
+    }
+
+    /**
+     * 关联使用本租约的 IdWorker, 此后由租约控制其可用时间
+     *
+     * @param worker IdWorker
+     */
+    public synchronized void bind(IdWorker worker) {
+        this.idWorker = worker;
+        worker.setValidUntil(clock.millis() > resumeAfter ? validUntil : Long.MIN_VALUE);
+    }
+
+    public int getWorkerId() {
+        return slot & 31;
+    }
+
+    public int getDatacenterId() {
+        return slot >>> 5;
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        suspend();
+        // 水位已覆盖本节点可能用到的最大时间戳, 释放后其他节点越过水位才会使用该槽位
+        if (slot >= 0 && redisUtil.compareAndDelete(KEY_PREFIX + slot, owner)) {
+            log.info("ZGH01280: idworker slot released, slot = {}", slot);
+        }
+    }
+
+    private boolean tryLease(int candidate) {
+        return redisUtil.setIfAbsent(KEY_PREFIX + candidate, owner, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    private void start(int candidate) {
+        slot = candidate;
+        extend(clock.millis());
+        long period = Math.max(1, ttlSeconds / 3);
+        heartbeat.scheduleAtFixedRate(this::renew, period, period, TimeUnit.SECONDS);
+        log.info("ZGH01270: idworker slot leased, slot = {}, owner = {}", candidate, owner);
+    }
+
+    /**
+     * 续期成功后调用: 先抬高水位再延长 IdWorker 的可用时间, 保证水位始终覆盖已生成的 id;
+     * 槽位 key 在 redis 中的过期时间晚于 renewStart + ttl, 本节点停止生成 id 时槽位仍归自己所有
+     */
+    private void extend(long renewStart) {
+        long until = renewStart + TimeUnit.SECONDS.toMillis(ttlSeconds);
+        redisUtil.updateMax(watermarkKey(slot), until + maxBackwardMillis);
+        synchronized (this) {
+            validUntil = until;
+            if (idWorker != null && renewStart > resumeAfter) {
+                idWorker.setValidUntil(until);
+            }
+        }
+    }
+
+    private synchronized void suspend() {
+        validUntil = Long.MIN_VALUE;
+        if (idWorker != null) {
+            idWorker.setValidUntil(Long.MIN_VALUE);
+        }
+    }
+
+    private void renew() {
+        String key = KEY_PREFIX + slot;
+        long renewStart = clock.millis();
+        try {
+            if (redisUtil.compareAndSet(key, owner, owner, ttlSeconds)) {
+                extend(renewStart);
+                return;
+            }
+            // 续期失败说明 key 已过期(例如长时间 GC 或 redis 不可用超过 ttl), 此时 IdWorker 已因超过可用时间停止生成;
+            // 槽位空闲时重新占用, 期间可能有其他节点用过该槽位, 时钟越过水位后才恢复
+            if (redisUtil.setIfAbsent(key, owner, ttlSeconds, TimeUnit.SECONDS)) {
+                long reusableAfter = reusableAfter(slot);
+                synchronized (this) {
+                    resumeAfter = reusableAfter;
+                }
+                extend(renewStart);
+                log.warn("ZGH01290: idworker slot lease expired and re-acquired, slot = {}, resume after {}", slot, reusableAfter);
+            } else {
+                // 槽位已被其他节点占用, 继续生成会产生重复 id; 停止生成并不再续期, 需重启节点重新租用
+                heartbeat.shutdown();
+                suspend();
+                log.error("ZGH01300: idworker slot {} is now held by another node, id generation stopped", slot);
+            }
+        } catch (RuntimeException e) {
+            // 单次续期失败不放弃, 可用时间到期前续期成功即可; 到期后 IdWorker 拒绝生成直到续期成功
+            log.warn("ZGH01310: idworker slot renew failed, slot = {}", slot, e);
+        }
+    }
+
+    private long reusableAfter(int candidate) {
+        long watermark = redisUtil.updateMax(watermarkKey(candidate), 0);
+        return watermark == 0 ? Long.MIN_VALUE : watermark + maxClockSkewMillis;
+    }
+
+    /**
+     * 等待时钟越过 millis
+     */
+    protected void sleepUntil(long millis) {
+        long now = clock.millis();
+        while (now <= millis) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis + 1 - now));
+            now = clock.millis();
+        }
+    }
+
+    private static String watermarkKey(int slot) {
+        return KEY_PREFIX + slot + WATERMARK_SUFFIX;
+    }
+
+}
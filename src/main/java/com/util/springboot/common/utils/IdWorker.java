@@ -3,9 +3,13 @@ package com.util.springboot.common.utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Clock;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * From: https://github.com/twitter/snowflake
@@ -13,13 +17,22 @@ import java.util.Set;
  * This is broken into a separate class in case
  * we ever want to support multiple worker threads
  * per process
+ *
+ * 时间戳和序列号打包在一个 AtomicLong 中, 通过 CAS 推进, 不加锁;
+ * 同一毫秒内序列号用完时 park 到下一毫秒, 不空转 CPU.
+ *
+ * 时钟回拨不超过 maxBackwardMillis 时不报错: 继续沿用上次的时间戳, 序列号用完后把时间戳提前 1 毫秒(向未来借用),
+ * 逻辑时间领先系统时钟不超过 maxBackwardMillis; 超过阈值时仍然拒绝生成.
+ * 借用期间进程重启, 新进程从系统时钟开始, 可能与借用的 id 重复, 因此阈值不宜过大
  */
 public class IdWorker {
 
     private static final Logger log = LoggerFactory.getLogger(IdWorker.class);
+
+    /** 默认容忍的时钟回拨毫秒数, 覆盖 NTP 的小幅度校正 */
+    public static final long DEFAULT_MAX_BACKWARD_MILLIS = 1000L;
     private long workerId;
     private long datacenterId;
-    private long sequence = 0L; // 0，并发控制
 
     private long twepoch = 1288834974657L;
 
@@ -34,9 +47,35 @@ public class IdWorker {
     private long timestampLeftShift = sequenceBits + workerIdBits + datacenterIdBits;
     private long sequenceMask = -1L ^ (-1L << sequenceBits);
 
-    private long lastTimestamp = -1L;
+    private long nodeBits;
+
+    private final Clock clock;
+
+    private final long maxBackwardMillis;
+
+    /** 发生过回拨并借用时间戳生成的次数 */
+    private final AtomicLong backwardCount = new AtomicLong();
+
+    /** (timestamp - twepoch) << sequenceBits | sequence, 初始为 -1 表示尚未生成过 */
+    private final AtomicLong state = new AtomicLong(-1L);
+
+    /**
+     * 允许生成 id 的截止时间(系统时钟毫秒), 超过后拒绝生成; 由 workerId 租约在每次续期成功后推后,
+     * 租约丢失时设为 Long.MIN_VALUE 立即停止. 固定 workerId 时不限
+     */
+    private volatile long validUntil = Long.MAX_VALUE;
 
     public IdWorker(long workerId, long datacenterId) {
+        this(workerId, datacenterId, Clock.systemUTC(), 0L);
+    }
+
+    /**
+     * @param workerId 机器id
+     * @param datacenterId 数据中心id
+     * @param clock 时间来源, 测试时可传入可控的 Clock
+     * @param maxBackwardMillis 容忍的时钟回拨毫秒数, 0 表示任何回拨都拒绝生成
+     */
+    public IdWorker(long workerId, long datacenterId, Clock clock, long maxBackwardMillis) {
         // sanity check for workerId
         if (workerId > maxWorkerId || workerId < 0) { // workId < 1024[10位：2的10次方]
             throw new IllegalArgumentException(String.format("worker Id can't be greater than %d or less than 0", maxWorkerId));
@@ -46,33 +85,132 @@ public class IdWorker {
         }
         this.workerId = workerId;
         this.datacenterId = datacenterId;
+        this.nodeBits = (datacenterId << datacenterIdShift) | (workerId << workerIdShift);
+        if (maxBackwardMillis < 0) {
+            throw new IllegalArgumentException("maxBackwardMillis can't be less than 0");
+        }
+        this.clock = clock;
+        this.maxBackwardMillis = maxBackwardMillis;
         log.info("ZGH01240:String.format(\"worker starting. timestamp left shift %d, datacenter id bits %d, worker id bits %d, sequence bits %d, workerid %d\", timestampLeftShift, datacenterIdBits, workerIdBits, sequenceBits, workerId)");
     }
 
-    public synchronized long nextId() {
-        long timestamp = timeGen();
+    public long nextId() {
+        return toId(reserve(1));
+    }
 
-        if (timestamp < lastTimestamp) {
-            log.error("ZGH01260:String.format(\"clock is moving backwards.  Rejecting requests until %d.\", lastTimestamp)");
-            throw new RuntimeException(String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
+    /**
+     * 一次预留 count 个连续序列号, 同一毫秒内只需一次 CAS; 跨毫秒时分多次预留
+     *
+     * @param count 数量
+     * @return 按生成顺序递增的 id
+     */
+    public long[] nextIds(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        long[] ids = new long[count];
+        int filled = 0;
+        while (filled < count) {
+            int batch = (int) Math.min(count - filled, sequenceMask + 1);
+            long first = reserve(batch);
+            long reserved = Math.min(batch, sequenceMask - (first & sequenceMask) + 1);
+            for (long packed = first; packed < first + reserved; packed++) {
+                ids[filled++] = toId(packed);
+            }
         }
+        return ids;
+    }
 
-        if (lastTimestamp == timestamp) { // 如果上一个timestamp与新产生的相等，则sequence加一(0-4095循环)，下次再使用时sequence是新值
-            sequence = (sequence + 1) & sequenceMask;
-            if (sequence == 0) {
-                timestamp = tilNextMillis(lastTimestamp); // 重新生成timestamp
+    /**
+     * 预留最多 count 个序列号, 返回第一个的打包值; 实际数量受当前毫秒剩余序列号限制,
+     * 为 min(count, sequenceMask - 第一个序列号 + 1)
+     */
+    private long reserve(int count) {
+        while (true) {
+            long current = state.get();
+            long lastTimestamp = current < 0 ? -1L : current >>> sequenceBits;
+            long now = timeGen() - twepoch;
+            long timestamp = now;
+
+            if (now + twepoch > validUntil) {
+                log.error("ZGH01320: worker id lease is not valid since {}, refusing to generate id", validUntil);
+                throw new IllegalStateException("worker id lease expired or lost, refusing to generate id");
+            }
+
+            if (timestamp < lastTimestamp) {
+                if (lastTimestamp - timestamp > maxBackwardMillis) {
+                    log.error("ZGH01260: clock is moving backwards. Rejecting requests until {}.", lastTimestamp + twepoch);
+                    throw new RuntimeException(String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
+                }
+                // 回拨在容忍范围内, 沿用上次的时间戳
+                timestamp = lastTimestamp;
+            }
+
+            long first;
+            long next;
+            if (timestamp == lastTimestamp) { // 同一毫秒内 sequence 递增, 用完后等待下一毫秒
+                long sequence = current & sequenceMask;
+                if (sequence == sequenceMask) {
+                    if (lastTimestamp + 1 - now > maxBackwardMillis) {
+                        tilNextMillis(lastTimestamp + twepoch - maxBackwardMillis);
+                        continue;
+                    }
+                    // 借用下一毫秒, 逻辑时间领先系统时钟仍在容忍范围内
+                    first = (lastTimestamp + 1) << sequenceBits;
+                    next = first + Math.min(count, sequenceMask + 1) - 1;
+                    if (state.compareAndSet(current, next)) {
+                        backwardCount.incrementAndGet();
+                        return first;
+                    }
+                    continue;
+                }
+                first = current + 1;
+                next = current + Math.min(count, sequenceMask - sequence);
+            } else {
+                first = timestamp << sequenceBits;
+                next = first + Math.min(count, sequenceMask + 1) - 1;
+            }
+            if (state.compareAndSet(current, next)) {
+                return first;
             }
-        } else {
-            sequence = 0L;
         }
+    }
 
-        lastTimestamp = timestamp;
+    public long getWorkerId() {
+        return workerId;
+    }
 
-        return ((timestamp - twepoch) << timestampLeftShift) | (datacenterId << datacenterIdShift) | (workerId << workerIdShift) | sequence;
+    public long getDatacenterId() {
+        return datacenterId;
     }
 
     /**
-     * 保证返回的毫秒数在参数之后
+     * 设置允许生成 id 的截止时间
+     *
+     * @param validUntil 系统时钟毫秒数, Long.MIN_VALUE 表示立即停止, Long.MAX_VALUE 表示不限
+     */
+    public void setValidUntil(long validUntil) {
+        this.validUntil = validUntil;
+    }
+
+    public long getValidUntil() {
+        return validUntil;
+    }
+
+    /**
+     * 因时钟回拨或序列号用完而借用时间戳的次数, 持续增长说明时钟不稳定或请求量超过单机上限
+     */
+    public long getBackwardCount() {
+        return backwardCount.get();
+    }
+
+    private long toId(long packed) {
+        return ((packed >>> sequenceBits) << timestampLeftShift) | nodeBits | (packed & sequenceMask);
+    }
+
+    /**
+     * 保证返回的毫秒数在参数之后; 还差一毫秒以上时 park 到最后一毫秒,
+     * 最后一毫秒内 yield 等待, 避免 park 越过毫秒边界后才被唤醒而损失序列号已用完时的吞吐
      *
      * @param lastTimestamp
      * @return
@@ -80,18 +218,24 @@ public class IdWorker {
     protected long tilNextMillis(long lastTimestamp) {
         long timestamp = timeGen();
         while (timestamp <= lastTimestamp) {
+            long remaining = lastTimestamp + 1 - timestamp;
+            if (remaining > 1) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(remaining - 1));
+            } else {
+                Thread.yield();
+            }
             timestamp = timeGen();
         }
         return timestamp;
     }
 
     /**
-     * 获得系统当前毫秒数
+     * 获得当前毫秒数, 来自构造时传入的 Clock
      *
      * @return
      */
     protected long timeGen() {
-        return System.currentTimeMillis();
+        return clock.millis();
     }
 
     private static Set<String> idsSet = new HashSet<>(500000);
@@ -110,14 +254,39 @@ public class IdWorker {
         return true;
     }
 
-    private static Random random = new Random(200);
+    /**
+     * 静态方法使用的实例; 应用启动后由 IdWorkerConfig 替换为从 redis 租用 id 的实例,
+     * 固定的 (30, 30) 只用于 Spring 容器之外(例如 main 方法)
+     */
+    private static volatile IdWorker idWorker = new IdWorker(30, 30, Clock.systemUTC(), DEFAULT_MAX_BACKWARD_MILLIS);
 
-    private static IdWorker idWorker = new IdWorker(30, 30);
+    /**
+     * 替换静态方法使用的实例
+     *
+     * @param worker IdWorker
+     */
+    public static void install(IdWorker worker) {
+        idWorker = worker;
+        log.info("ZGH01250: idworker installed, datacenterId = {}, workerId = {}", worker.getDatacenterId(), worker.getWorkerId());
+    }
 
+    /**
+     * 11 位 base62 短码, 由 id 一一对应而来, 不会重复
+     *
+     * @return 短码
+     */
     public static String getCode() {
-        String idS = idWorker.nextId() + "";
-        int begin = random.nextInt(15);
-        return idS.substring(begin, begin + 1) + idS.substring(7, 8) + idS.substring(idS.length() - 8, idS.length());
+        return ShortCodes.BASE62.encode(idWorker.nextId());
+    }
+
+    /**
+     * 把短码写入 dst[offset, offset + 11), 批量生成时可复用同一个数组
+     *
+     * @param dst 目标数组
+     * @param offset 起始位置
+     */
+    public static void getCode(char[] dst, int offset) {
+        ShortCodes.BASE62.encode(idWorker.nextId(), dst, offset);
     }
 
     public static String getOrderCode() {
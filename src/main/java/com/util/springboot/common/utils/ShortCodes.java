@@ -0,0 +1,143 @@
+package com.util.springboot.common.utils;
+
+import java.util.Arrays;
+
+/**
+ * @description 把 long 编码为定长短码, 先经过一次 64 位上的双射打乱(乘奇数、异或移位、再乘奇数),
+ * 相邻 id 生成的短码看不出规律; 不同 id 得到的短码一定不同, 也可以用 {@link #decode} 还原.
+ * 实例不可变, 可在多线程间共享; {@link #encode(long, char[], int)} 直接写入调用方的数组, 不产生中间对象
+ */
+public final class ShortCodes {
+
+    /** Crockford base32, 去掉了 I L O U, 13 位, 解码时不区分大小写 */
+    public static final ShortCodes BASE32 = new ShortCodes("0123456789ABCDEFGHJKMNPQRSTVWXYZ", 13);
+
+    /** base62, 11 位, 区分大小写 */
+    public static final ShortCodes BASE62 = new ShortCodes(
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz", 11);
+
+    private static final long MULTIPLIER_1 = 0x9E3779B97F4A7C15L;
+
+    private static final long MULTIPLIER_2 = 0xBF58476D1CE4E5B9L;
+
+    private static final long INVERSE_1 = inverse(MULTIPLIER_1);
+
+    private static final long INVERSE_2 = inverse(MULTIPLIER_2);
+
+    private final char[] alphabet;
+
+    private final int radix;
+
+    private final int width;
+
+    /** 字符 -> 数值, 不在字母表中的为 -1 */
+    private final byte[] lookup = new byte[128];
+
+    private ShortCodes(String alphabet, int width) {
+        this.alphabet = alphabet.toCharArray();
+        this.radix = alphabet.length();
+        this.width = width;
+        Arrays.fill(lookup, (byte) -1);
+        for (int i = 0; i < radix; i++) {
+            char c = alphabet.charAt(i);
+            lookup[c] = (byte) i;
+            if (radix == 32) {
+                lookup[Character.toLowerCase(c)] = (byte) i;
+            }
+        }
+    }
+
+    /**
+     * 短码长度, 对所有 id 都相同
+     */
+    public int width() {
+        return width;
+    }
+
+    /**
+     * 编码后写入 dst[offset, offset + width)
+     *
+     * @param id id
+     * @param dst 目标数组
+     * @param offset 起始位置
+     */
+    public void encode(long id, char[] dst, int offset) {
+        long value = permute(id);
+        int pos = offset + width;
+        if (radix == 32) {
+            for (int i = 0; i < width; i++) {
+                dst[--pos] = alphabet[(int) (value & 31)];
+                value >>>= 5;
+            }
+            return;
+        }
+        // 第一位按无符号处理, 之后的值已经非负
+        long quotient = Long.divideUnsigned(value, radix);
+        dst[--pos] = alphabet[(int) (value - quotient * radix)];
+        value = quotient;
+        for (int i = 1; i < width; i++) {
+            dst[--pos] = alphabet[(int) (value % radix)];
+            value /= radix;
+        }
+    }
+
+    /**
+     * 编码为字符串
+     *
+     * @param id id
+     * @return 定长短码
+     */
+    public String encode(long id) {
+        char[] code = new char[width];
+        encode(id, code, 0);
+        return new String(code);
+    }
+
+    /**
+     * 还原 {@link #encode} 前的 id
+     *
+     * @param code 短码
+     * @return id
+     * @throws IllegalArgumentException 长度不对或包含字母表之外的字符
+     */
+    public long decode(CharSequence code) {
+        if (code.length() != width) {
+            throw new IllegalArgumentException("short code must be " + width + " chars: " + code);
+        }
+        long value = 0;
+        for (int i = 0; i < width; i++) {
+            char c = code.charAt(i);
+            int digit = c < lookup.length ? lookup[c] : -1;
+            if (digit < 0) {
+                throw new IllegalArgumentException("illegal char '" + c + "' in short code: " + code);
+            }
+            value = value * radix + digit;
+        }
+        return unpermute(value);
+    }
+
+    private static long permute(long x) {
+        x *= MULTIPLIER_1;
+        x ^= x >>> 32;
+        return x * MULTIPLIER_2;
+    }
+
+    private static long unpermute(long x) {
+        x *= INVERSE_2;
+        // 移位不小于 32 位时异或移位是自身的逆
+        x ^= x >>> 32;
+        return x * INVERSE_1;
+    }
+
+    /**
+     * 奇数在模 2^64 下的乘法逆元, 牛顿迭代每次精度翻倍
+     */
+    private static long inverse(long odd) {
+        long x = odd;
+        for (int i = 0; i < 5; i++) {
+            x *= 2 - odd * x;
+        }
+        return x;
+    }
+
+}
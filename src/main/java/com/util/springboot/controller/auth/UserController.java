@@ -1,11 +1,15 @@
 package com.util.springboot.controller.auth;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.util.springboot.cache.redis.RedisUtil;
 import com.util.springboot.common.utils.AssertUtils;
 import com.util.springboot.enums.PublicEnums;
 import com.util.springboot.global.context.json.ResponseInfo;
 import com.util.springboot.global.context.utils.ResponseUtils;
 import com.util.springboot.global.session.SessionUtils;
+import com.util.springboot.limit.RateLimit;
 import com.util.springboot.model.User;
 import com.util.springboot.service.auth.UserService;
 import io.swagger.annotations.ApiImplicitParam;
@@ -15,13 +19,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.annotation.Resource;
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("/demo/user")
@@ -35,7 +46,14 @@ public class UserController {
     @Autowired
     private RedisUtil redisUtil;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /** 导出时每写多少行 flush 一次, 作为一个 http chunk 发出 */
+    private static final int EXPORT_FLUSH_ROWS = 500;
+
     @RequestMapping(value = "/create", method = RequestMethod.POST)
+    @RateLimit(name = "userCreate", capacity = 5, permitsPerSecond = 0.2)
     @ApiOperation(notes = "添加用户", value = "添加一个用户", httpMethod = "POST")
     @ApiImplicitParams({
             @ApiImplicitParam(name = "username", paramType = "query", dataType = "string"),
@@ -50,18 +68,59 @@ public class UserController {
     }
 
     @RequestMapping(value = "/listAll", method = RequestMethod.GET)
-    @ApiOperation(notes = "查询所有用户", value = "查询所有用户列表", httpMethod = "GET")
-    public ResponseInfo get(Integer offset, Integer limit, HttpServletRequest request) {
+    @ApiOperation(notes = "查询所有用户", value = "分页查询用户列表", httpMethod = "GET")
+    @ApiImplicitParams({
+            @ApiImplicitParam(name = "offset", paramType = "query", dataType = "int"),
+            @ApiImplicitParam(name = "limit", paramType = "query", dataType = "int"),
+            @ApiImplicitParam(name = "afterId", paramType = "query", dataType = "int"),
+            @ApiImplicitParam(name = "withTotal", paramType = "query", dataType = "boolean")
+    })
+    public ResponseInfo get(Integer offset, Integer limit, Integer afterId, Boolean withTotal, HttpServletRequest request) {
         User user = (User) SessionUtils.getAttribute(request, "user");
         log.debug("---------------");
+        // 传入 afterId 时按游标分页, 否则按 offset 分页
+        List<User> userList = afterId != null ? userService.findAfter(afterId, limit) : userService.findAll(offset, limit);
         ResponseInfo responseInfo = ResponseUtils.buildResponseInfo();
-        responseInfo.putData("userList", userService.findAll(offset, limit));
+        responseInfo.putData("userList", userList);
+        if (!userList.isEmpty()) {
+            responseInfo.putData("nextAfterId", userList.get(userList.size() - 1).getId());
+        }
+        if (Boolean.TRUE.equals(withTotal)) {
+            responseInfo.putData("total", userService.count());
+        }
         responseInfo.putData("user", user);
         return responseInfo;
     }
 
+    @RequestMapping(value = "/export", method = RequestMethod.GET)
+    @ApiOperation(notes = "导出所有用户", value = "流式导出全部用户, 每行一个 json(ndjson)", httpMethod = "GET")
+    public ResponseEntity<StreamingResponseBody> export() {
+        // 默认写完一个值会关闭输出流, 逐行写入时需要关掉
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        StreamingResponseBody body = outputStream -> {
+            int[] rows = {0};
+            userService.forEachUser(user -> writeLine(writer, outputStream, user, ++rows[0]));
+            outputStream.flush();
+            log.info("ZGH10050: users exported, rows = {}", rows[0]);
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    private static void writeLine(ObjectWriter writer, OutputStream outputStream, User user, int row) {
+        try {
+            user.setPassword(null);
+            writer.writeValue(outputStream, user);
+            outputStream.write('\n');
+            if (row % EXPORT_FLUSH_ROWS == 0) {
+                outputStream.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @RequestMapping("/cache")
-    @Cacheable(value = "redisCache")
+    @Cacheable(value = "redisCache", sync = true)
     public String getCacheValue(){
         redisUtil.set("123", "测试");
         String cacheValue = redisUtil.get("123").toString();
@@ -0,0 +1,78 @@
+package com.util.springboot.dao.mapper;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.util.springboot.model.ExampleCriteria;
+import com.util.springboot.model.ExampleCriterion;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * @description SqlProvider 生成的 sql 按 example 的"形状"缓存: 条件结构、列表长度、distinct、orderBy、分页,
+ * 与参数值无关(参数都以 #{} 占位符输出); 形状相同的查询直接复用上次拼好的 sql.
+ * orderByClause 是任意字符串, 形状数量没有上限, 因此按数量淘汰
+ */
+final class ProviderSqlCache {
+
+    private static final long MAX_SHAPES = 1024;
+
+    private final Cache<String, String> cache = Caffeine.newBuilder().maximumSize(MAX_SHAPES).build();
+
+    String get(CharSequence shape, Supplier<String> builder) {
+        return cache.get(shape.toString(), key -> builder.get());
+    }
+
+    /**
+     * example 的形状: 条件结构(每个条件的 sql 片段、取值方式、列表长度、typeHandler)、distinct、查询列、orderBy 及是否分页;
+     * 返回的 StringBuilder 可继续追加语句特有的部分(例如 updateByExampleSelective 中非 null 的字段)
+     *
+     * @param statement 语句名称
+     * @param distinct 是否 distinct
+     * @param selectColumns 查询列, 为 null 时查询全部列
+     * @param orderByClause 排序子句, 可为 null
+     * @param offset 分页偏移, 可为 null
+     * @param limit 分页大小, 可为 null
+     * @param oredCriteria 以 or 连接的条件组
+     * @return 形状
+     */
+    static StringBuilder shapeOf(String statement, boolean distinct, List<? extends Enum<?>> selectColumns,
+                                 String orderByClause, Integer offset, Integer limit,
+                                 List<? extends ExampleCriteria> oredCriteria) {
+        StringBuilder key = new StringBuilder(128).append(statement);
+        key.append('|').append(distinct ? 'd' : '-');
+        if (selectColumns != null) {
+            for (Enum<?> column : selectColumns) {
+                key.append(column.ordinal()).append(',');
+            }
+        }
+        if (orderByClause != null) {
+            key.append(orderByClause.length()).append(':').append(orderByClause);
+        }
+        key.append('|').append(offset != null ? 'o' : '-').append(limit != null ? 'l' : '-');
+        for (ExampleCriteria criteria : oredCriteria) {
+            key.append('(');
+            if (criteria.isValid()) {
+                for (ExampleCriterion criterion : criteria.getAllCriteria()) {
+                    key.append(criterion.getCondition());
+                    if (criterion.isNoValue()) {
+                        key.append("#n");
+                    } else if (criterion.isSingleValue()) {
+                        key.append("#s");
+                    } else if (criterion.isBetweenValue()) {
+                        key.append("#b");
+                    } else if (criterion.isListValue()) {
+                        key.append("#l").append(((List<?>) criterion.getValue()).size());
+                    }
+                    if (criterion.getTypeHandler() != null) {
+                        key.append('@').append(criterion.getTypeHandler());
+                    }
+                    key.append(';');
+                }
+            }
+            key.append(')');
+        }
+        return key;
+    }
+
+}
@@ -1,16 +1,26 @@
 package com.util.springboot.dao.mapper;
 
 import com.util.springboot.model.Role;
+import com.util.springboot.model.RoleExample.Column;
 import com.util.springboot.model.RoleExample.Criteria;
 import com.util.springboot.model.RoleExample.Criterion;
 import com.util.springboot.model.RoleExample;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import org.apache.ibatis.jdbc.SQL;
 
 public class RoleSqlProvider {
 
+    private static final ProviderSqlCache SQL_CACHE = new ProviderSqlCache();
+
+    private static final List<Column> ALL_COLUMNS = Arrays.asList(Column.values());
+
     public String countByExample(RoleExample example) {
+        return SQL_CACHE.get(shapeOf("countByExample", example), () -> buildCountByExample(example));
+    }
+
+    protected String buildCountByExample(RoleExample example) {
         SQL sql = new SQL();
         sql.SELECT("count(*)").FROM("role");
         applyWhere(sql, example, false);
@@ -18,6 +28,10 @@ public class RoleSqlProvider {
     }
 
     public String deleteByExample(RoleExample example) {
+        return SQL_CACHE.get(shapeOf("deleteByExample", example), () -> buildDeleteByExample(example));
+    }
+
+    protected String buildDeleteByExample(RoleExample example) {
         SQL sql = new SQL();
         sql.DELETE_FROM("role");
         applyWhere(sql, example, false);
@@ -40,14 +54,12 @@ public class RoleSqlProvider {
     }
 
     public String selectByExample(RoleExample example) {
+        return SQL_CACHE.get(shapeOf("selectByExample", example), () -> buildSelectByExample(example));
+    }
+
+    protected String buildSelectByExample(RoleExample example) {
         SQL sql = new SQL();
-        if (example != null && example.isDistinct()) {
-            sql.SELECT_DISTINCT("id");
-        } else {
-            sql.SELECT("id");
-        }
-        sql.SELECT("name");
-        sql.SELECT("code");
+        applySelect(sql, example);
         sql.FROM("role");
         applyWhere(sql, example, false);
         
@@ -61,7 +73,14 @@ public class RoleSqlProvider {
     public String updateByExampleSelective(Map<String, Object> parameter) {
         Role record = (Role) parameter.get("record");
         RoleExample example = (RoleExample) parameter.get("example");
-        
+        StringBuilder shape = shapeOf("updateByExampleSelective", example).append('|');
+        shape.append(record.getId() != null ? '1' : '0');
+        shape.append(record.getName() != null ? '1' : '0');
+        shape.append(record.getCode() != null ? '1' : '0');
+        return SQL_CACHE.get(shape, () -> buildUpdateByExampleSelective(record, example));
+    }
+
+    protected String buildUpdateByExampleSelective(Role record, RoleExample example) {
         SQL sql = new SQL();
         sql.UPDATE("role");
         
@@ -82,6 +101,11 @@ public class RoleSqlProvider {
     }
 
     public String updateByExample(Map<String, Object> parameter) {
+        RoleExample example = (RoleExample) parameter.get("example");
+        return SQL_CACHE.get(shapeOf("updateByExample", example), () -> buildUpdateByExample(example));
+    }
+
+    protected String buildUpdateByExample(RoleExample example) {
         SQL sql = new SQL();
         sql.UPDATE("role");
         
@@ -89,7 +113,6 @@ public class RoleSqlProvider {
         sql.SET("name = #{record.name,jdbcType=VARCHAR}");
         sql.SET("code = #{record.code,jdbcType=VARCHAR}");
         
-        RoleExample example = (RoleExample) parameter.get("example");
         applyWhere(sql, example, true);
         return sql.toString();
     }
@@ -111,6 +134,35 @@ public class RoleSqlProvider {
         return sql.toString();
     }
 
+    /**
+     * 输出 example 指定的列, 未指定时输出全部列; mapper 的 @Results 只映射结果集中存在的列, 无需为每种投影单独定义
+     */
+    protected void applySelect(SQL sql, RoleExample example) {
+        List<Column> columns = example != null ? example.getSelectColumns() : null;
+        if (columns == null || columns.isEmpty()) {
+            columns = ALL_COLUMNS;
+        }
+        boolean distinct = example != null && example.isDistinct();
+        for (Column column : columns) {
+            if (distinct) {
+                sql.SELECT_DISTINCT(column.value());
+            } else {
+                sql.SELECT(column.value());
+            }
+        }
+    }
+
+    /**
+     * sql 缓存的形状, 见 {@link ProviderSqlCache#shapeOf}
+     */
+    protected StringBuilder shapeOf(String statement, RoleExample example) {
+        if (example == null) {
+            return new StringBuilder(statement);
+        }
+        return ProviderSqlCache.shapeOf(statement, example.isDistinct(), example.getSelectColumns(),
+                example.getOrderByClause(), null, null, example.getOredCriteria());
+    }
+
     protected void applyWhere(SQL sql, RoleExample example, boolean includeExamplePhrase) {
         if (example == null) {
             return;
@@ -7,14 +7,18 @@ import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.DeleteProvider;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.InsertProvider;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.SelectKey;
 import org.apache.ibatis.annotations.SelectProvider;
 import org.apache.ibatis.annotations.Update;
 import org.apache.ibatis.annotations.UpdateProvider;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.type.JdbcType;
 
 public interface UserMapper {
@@ -45,6 +49,13 @@ public interface UserMapper {
     @SelectKey(statement="SELECT LAST_INSERT_ID()", keyProperty="id", before=false, resultType=Integer.class)
     int insertSelective(User record);
 
+    /**
+     * 多行 insert, 一条语句写入 records 中的全部用户; 自增 id 通过 getGeneratedKeys 一次性回填到各个 record
+     */
+    @InsertProvider(type=UserSqlProvider.class, method="insertBatch")
+    @Options(useGeneratedKeys=true, keyProperty="id", keyColumn="id")
+    int insertBatch(@Param("list") List<User> records);
+
     @SelectProvider(type=UserSqlProvider.class, method="selectByExample")
     @Results({
         @Result(column="id", property="id", jdbcType=JdbcType.INTEGER, id=true),
@@ -56,6 +67,25 @@ public interface UserMapper {
     })
     List<User> selectByExample(UserExample example);
 
+    /**
+     * 与 selectByExample 相同的查询, 但逐行交给 handler 而不是组装成 List;
+     * fetchSize=Integer.MIN_VALUE 让 mysql 驱动流式读取结果集, 内存占用与表大小无关.
+     * 流式读取期间同一个连接上不能执行其他语句, handler 中不要再访问数据库.
+     * void 方法没有返回类型可推断, 须用 @ResultType 指定行类型, 否则 mybatis 调用时抛出 BindingException
+     */
+    @SelectProvider(type=UserSqlProvider.class, method="selectByExample")
+    @Options(fetchSize=Integer.MIN_VALUE, resultSetType=ResultSetType.FORWARD_ONLY)
+    @ResultType(User.class)
+    @Results({
+        @Result(column="id", property="id", jdbcType=JdbcType.INTEGER, id=true),
+        @Result(column="user_name", property="userName", jdbcType=JdbcType.VARCHAR),
+        @Result(column="password", property="password", jdbcType=JdbcType.VARCHAR),
+        @Result(column="age", property="age", jdbcType=JdbcType.INTEGER),
+        @Result(column="birthday", property="birthday", jdbcType=JdbcType.TIMESTAMP),
+        @Result(column="nike_name", property="nikeName", jdbcType=JdbcType.VARCHAR)
+    })
+    void streamByExample(UserExample example, ResultHandler<User> handler);
+
     @Select({
         "select",
         "id, user_name, password, age, birthday, nike_name",
@@ -72,6 +102,26 @@ public interface UserMapper {
     })
     User selectByPrimaryKey(Integer id);
 
+    /**
+     * 按用户名查询单个用户, 走 user_name 唯一索引, 命中一行即返回
+     */
+    @Select({
+        "select",
+        "id, user_name, password, age, birthday, nike_name",
+        "from user",
+        "where user_name = #{userName,jdbcType=VARCHAR}",
+        "limit 1"
+    })
+    @Results({
+        @Result(column="id", property="id", jdbcType=JdbcType.INTEGER, id=true),
+        @Result(column="user_name", property="userName", jdbcType=JdbcType.VARCHAR),
+        @Result(column="password", property="password", jdbcType=JdbcType.VARCHAR),
+        @Result(column="age", property="age", jdbcType=JdbcType.INTEGER),
+        @Result(column="birthday", property="birthday", jdbcType=JdbcType.TIMESTAMP),
+        @Result(column="nike_name", property="nikeName", jdbcType=JdbcType.VARCHAR)
+    })
+    User selectByUserName(String userName);
+
     @UpdateProvider(type=UserSqlProvider.class, method="updateByExampleSelective")
     int updateByExampleSelective(@Param("record") User record, @Param("example") UserExample example);
 
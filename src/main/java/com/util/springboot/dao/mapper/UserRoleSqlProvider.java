@@ -1,16 +1,26 @@
 package com.util.springboot.dao.mapper;
 
 import com.util.springboot.model.UserRole;
+import com.util.springboot.model.UserRoleExample.Column;
 import com.util.springboot.model.UserRoleExample.Criteria;
 import com.util.springboot.model.UserRoleExample.Criterion;
 import com.util.springboot.model.UserRoleExample;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import org.apache.ibatis.jdbc.SQL;
 
 public class UserRoleSqlProvider {
 
+    private static final ProviderSqlCache SQL_CACHE = new ProviderSqlCache();
+
+    private static final List<Column> ALL_COLUMNS = Arrays.asList(Column.values());
+
     public String countByExample(UserRoleExample example) {
+        return SQL_CACHE.get(shapeOf("countByExample", example), () -> buildCountByExample(example));
+    }
+
+    protected String buildCountByExample(UserRoleExample example) {
         SQL sql = new SQL();
         sql.SELECT("count(*)").FROM("user_role");
         applyWhere(sql, example, false);
@@ -18,6 +28,10 @@ public class UserRoleSqlProvider {
     }
 
     public String deleteByExample(UserRoleExample example) {
+        return SQL_CACHE.get(shapeOf("deleteByExample", example), () -> buildDeleteByExample(example));
+    }
+
+    protected String buildDeleteByExample(UserRoleExample example) {
         SQL sql = new SQL();
         sql.DELETE_FROM("user_role");
         applyWhere(sql, example, false);
@@ -40,14 +54,12 @@ public class UserRoleSqlProvider {
     }
 
     public String selectByExample(UserRoleExample example) {
+        return SQL_CACHE.get(shapeOf("selectByExample", example), () -> buildSelectByExample(example));
+    }
+
+    protected String buildSelectByExample(UserRoleExample example) {
         SQL sql = new SQL();
-        if (example != null && example.isDistinct()) {
-            sql.SELECT_DISTINCT("id");
-        } else {
-            sql.SELECT("id");
-        }
-        sql.SELECT("user_id");
-        sql.SELECT("role_id");
+        applySelect(sql, example);
         sql.FROM("user_role");
         applyWhere(sql, example, false);
         
@@ -61,7 +73,14 @@ public class UserRoleSqlProvider {
     public String updateByExampleSelective(Map<String, Object> parameter) {
         UserRole record = (UserRole) parameter.get("record");
         UserRoleExample example = (UserRoleExample) parameter.get("example");
-        
+        StringBuilder shape = shapeOf("updateByExampleSelective", example).append('|');
+        shape.append(record.getId() != null ? '1' : '0');
+        shape.append(record.getUserId() != null ? '1' : '0');
+        shape.append(record.getRoleId() != null ? '1' : '0');
+        return SQL_CACHE.get(shape, () -> buildUpdateByExampleSelective(record, example));
+    }
+
+    protected String buildUpdateByExampleSelective(UserRole record, UserRoleExample example) {
         SQL sql = new SQL();
         sql.UPDATE("user_role");
         
@@ -82,6 +101,11 @@ public class UserRoleSqlProvider {
     }
 
     public String updateByExample(Map<String, Object> parameter) {
+        UserRoleExample example = (UserRoleExample) parameter.get("example");
+        return SQL_CACHE.get(shapeOf("updateByExample", example), () -> buildUpdateByExample(example));
+    }
+
+    protected String buildUpdateByExample(UserRoleExample example) {
         SQL sql = new SQL();
         sql.UPDATE("user_role");
         
@@ -89,7 +113,6 @@ public class UserRoleSqlProvider {
         sql.SET("user_id = #{record.userId,jdbcType=INTEGER}");
         sql.SET("role_id = #{record.roleId,jdbcType=INTEGER}");
         
-        UserRoleExample example = (UserRoleExample) parameter.get("example");
         applyWhere(sql, example, true);
         return sql.toString();
     }
@@ -111,6 +134,35 @@ public class UserRoleSqlProvider {
         return sql.toString();
     }
 
+    /**
+     * 输出 example 指定的列, 未指定时输出全部列; mapper 的 @Results 只映射结果集中存在的列, 无需为每种投影单独定义
+     */
+    protected void applySelect(SQL sql, UserRoleExample example) {
+        List<Column> columns = example != null ? example.getSelectColumns() : null;
+        if (columns == null || columns.isEmpty()) {
+            columns = ALL_COLUMNS;
+        }
+        boolean distinct = example != null && example.isDistinct();
+        for (Column column : columns) {
+            if (distinct) {
+                sql.SELECT_DISTINCT(column.value());
+            } else {
+                sql.SELECT(column.value());
+            }
+        }
+    }
+
+    /**
+     * sql 缓存的形状, 见 {@link ProviderSqlCache#shapeOf}
+     */
+    protected StringBuilder shapeOf(String statement, UserRoleExample example) {
+        if (example == null) {
+            return new StringBuilder(statement);
+        }
+        return ProviderSqlCache.shapeOf(statement, example.isDistinct(), example.getSelectColumns(),
+                example.getOrderByClause(), null, null, example.getOredCriteria());
+    }
+
     protected void applyWhere(SQL sql, UserRoleExample example, boolean includeExamplePhrase) {
         if (example == null) {
             return;
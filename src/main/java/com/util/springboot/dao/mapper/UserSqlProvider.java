@@ -1,16 +1,26 @@
 package com.util.springboot.dao.mapper;
 
 import com.util.springboot.model.User;
+import com.util.springboot.model.UserExample.Column;
 import com.util.springboot.model.UserExample.Criteria;
 import com.util.springboot.model.UserExample.Criterion;
 import com.util.springboot.model.UserExample;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import org.apache.ibatis.jdbc.SQL;
 
 public class UserSqlProvider {
 
+    private static final ProviderSqlCache SQL_CACHE = new ProviderSqlCache();
+
+    private static final List<Column> ALL_COLUMNS = Arrays.asList(Column.values());
+
     public String countByExample(UserExample example) {
+        return SQL_CACHE.get(shapeOf("countByExample", example), () -> buildCountByExample(example));
+    }
+
+    protected String buildCountByExample(UserExample example) {
         SQL sql = new SQL();
         sql.SELECT("count(*)").FROM("user");
         applyWhere(sql, example, false);
@@ -18,6 +28,10 @@ public class UserSqlProvider {
     }
 
     public String deleteByExample(UserExample example) {
+        return SQL_CACHE.get(shapeOf("deleteByExample", example), () -> buildDeleteByExample(example));
+    }
+
+    protected String buildDeleteByExample(UserExample example) {
         SQL sql = new SQL();
         sql.DELETE_FROM("user");
         applyWhere(sql, example, false);
@@ -51,18 +65,38 @@ public class UserSqlProvider {
         return sql.toString();
     }
 
+    /**
+     * 多行 insert, 写入全部列(不像 insertSelective 那样跳过 null 字段); 只与行数有关, 按行数缓存
+     */
+    public String insertBatch(Map<String, Object> parameter) {
+        List<?> records = (List<?>) parameter.get("list");
+        final int size = records.size();
+        return SQL_CACHE.get("insertBatch|" + size, () -> buildInsertBatch(size));
+    }
+
+    protected String buildInsertBatch(int size) {
+        StringBuilder sb = new StringBuilder(64 + size * 200);
+        sb.append("insert into user (user_name, password, age, birthday, nike_name) values ");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append("(#{list[").append(i).append("].userName,jdbcType=VARCHAR}, ")
+                    .append("#{list[").append(i).append("].password,jdbcType=VARCHAR}, ")
+                    .append("#{list[").append(i).append("].age,jdbcType=INTEGER}, ")
+                    .append("#{list[").append(i).append("].birthday,jdbcType=TIMESTAMP}, ")
+                    .append("#{list[").append(i).append("].nikeName,jdbcType=VARCHAR})");
+        }
+        return sb.toString();
+    }
+
     public String selectByExample(UserExample example) {
+        return SQL_CACHE.get(shapeOf("selectByExample", example), () -> buildSelectByExample(example));
+    }
+
+    protected String buildSelectByExample(UserExample example) {
         SQL sql = new SQL();
-        if (example != null && example.isDistinct()) {
-            sql.SELECT_DISTINCT("id");
-        } else {
-            sql.SELECT("id");
-        }
-        sql.SELECT("user_name");
-        sql.SELECT("password");
-        sql.SELECT("age");
-        sql.SELECT("birthday");
-        sql.SELECT("nike_name");
+        applySelect(sql, example);
         sql.FROM("user");
         applyWhere(sql, example, false);
         
@@ -70,13 +104,23 @@ public class UserSqlProvider {
             sql.ORDER_BY(example.getOrderByClause());
         }
         
-        return sql.toString();
+        return applyLimit(sql.toString(), example);
     }
 
     public String updateByExampleSelective(Map<String, Object> parameter) {
         User record = (User) parameter.get("record");
         UserExample example = (UserExample) parameter.get("example");
-        
+        StringBuilder shape = shapeOf("updateByExampleSelective", example).append('|');
+        shape.append(record.getId() != null ? '1' : '0');
+        shape.append(record.getUserName() != null ? '1' : '0');
+        shape.append(record.getPassword() != null ? '1' : '0');
+        shape.append(record.getAge() != null ? '1' : '0');
+        shape.append(record.getBirthday() != null ? '1' : '0');
+        shape.append(record.getNikeName() != null ? '1' : '0');
+        return SQL_CACHE.get(shape, () -> buildUpdateByExampleSelective(record, example));
+    }
+
+    protected String buildUpdateByExampleSelective(User record, UserExample example) {
         SQL sql = new SQL();
         sql.UPDATE("user");
         
@@ -109,6 +153,11 @@ public class UserSqlProvider {
     }
 
     public String updateByExample(Map<String, Object> parameter) {
+        UserExample example = (UserExample) parameter.get("example");
+        return SQL_CACHE.get(shapeOf("updateByExample", example), () -> buildUpdateByExample(example));
+    }
+
+    protected String buildUpdateByExample(UserExample example) {
         SQL sql = new SQL();
         sql.UPDATE("user");
         
@@ -119,7 +168,6 @@ public class UserSqlProvider {
         sql.SET("birthday = #{record.birthday,jdbcType=TIMESTAMP}");
         sql.SET("nike_name = #{record.nikeName,jdbcType=VARCHAR}");
         
-        UserExample example = (UserExample) parameter.get("example");
         applyWhere(sql, example, true);
         return sql.toString();
     }
@@ -153,6 +201,49 @@ public class UserSqlProvider {
         return sql.toString();
     }
 
+    /**
+     * 输出 example 指定的列, 未指定时输出全部列; mapper 的 @Results 只映射结果集中存在的列, 无需为每种投影单独定义
+     */
+    protected void applySelect(SQL sql, UserExample example) {
+        List<Column> columns = example != null ? example.getSelectColumns() : null;
+        if (columns == null || columns.isEmpty()) {
+            columns = ALL_COLUMNS;
+        }
+        boolean distinct = example != null && example.isDistinct();
+        for (Column column : columns) {
+            if (distinct) {
+                sql.SELECT_DISTINCT(column.value());
+            } else {
+                sql.SELECT(column.value());
+            }
+        }
+    }
+
+    /**
+     * sql 缓存的形状, 见 {@link ProviderSqlCache#shapeOf}
+     */
+    protected StringBuilder shapeOf(String statement, UserExample example) {
+        if (example == null) {
+            return new StringBuilder(statement);
+        }
+        return ProviderSqlCache.shapeOf(statement, example.isDistinct(), example.getSelectColumns(),
+                example.getOrderByClause(), example.getOffset(), example.getLimit(), example.getOredCriteria());
+    }
+
+    /**
+     * 追加 mysql 分页子句, 只在设置了 limit 时生效;
+     * offset 与 limit 均以参数占位符输出, 不拼接具体数值
+     */
+    protected String applyLimit(String sql, UserExample example) {
+        if (example == null || example.getLimit() == null) {
+            return sql;
+        }
+        if (example.getOffset() == null) {
+            return sql + " limit #{limit,jdbcType=INTEGER}";
+        }
+        return sql + " limit #{offset,jdbcType=INTEGER}, #{limit,jdbcType=INTEGER}";
+    }
+
     protected void applyWhere(SQL sql, UserExample example, boolean includeExamplePhrase) {
         if (example == null) {
             return;
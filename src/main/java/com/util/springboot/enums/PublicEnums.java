@@ -5,7 +5,9 @@ public enum PublicEnums implements ResultEnums {
 
     SUCCESS(200, "请求成功!"),
     USER_NO_LOGIN(1000, "请先登录后再操作!"),
-    PARAMS_IS_NULL(1002, "参数不能为空!");
+    PARAMS_IS_NULL(1002, "参数不能为空!"),
+    TOO_MANY_REQUESTS(1003, "请求过于频繁, 请稍后再试!"),
+    USER_NAME_EXISTS(1004, "用户名已存在!");
 
     private final int code;
     private final String msg;
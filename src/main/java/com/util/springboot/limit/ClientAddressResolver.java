@@ -0,0 +1,57 @@
+package com.util.springboot.limit;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * @description 解析限流用的客户端地址. X-Forwarded-For 可由调用方任意填写, 只在请求直接来自受信代理时才采用,
+ * 并从右向左取第一个不受信的地址(即最后一个受信代理看到的对端); 否则使用连接的对端地址
+ */
+public class ClientAddressResolver {
+
+    private final Set<String> trustedProxies;
+
+    public ClientAddressResolver(Collection<String> trustedProxies) {
+        this.trustedProxies = new HashSet<>();
+        for (String proxy : trustedProxies) {
+            if (proxy != null && !proxy.trim().isEmpty()) {
+                this.trustedProxies.add(proxy.trim());
+            }
+        }
+    }
+
+    /**
+     * @param request 请求
+     * @return 客户端地址
+     */
+    public String resolve(HttpServletRequest request) {
+        return resolve(request.getRemoteAddr(), request.getHeader("X-Forwarded-For"));
+    }
+
+    /**
+     * @param remoteAddr 连接的对端地址
+     * @param forwardedFor X-Forwarded-For 请求头, 可为 null
+     * @return 客户端地址
+     */
+    String resolve(String remoteAddr, String forwardedFor) {
+        if (forwardedFor == null || !trustedProxies.contains(remoteAddr)) {
+            return remoteAddr;
+        }
+        String client = remoteAddr;
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (hop.isEmpty()) {
+                continue;
+            }
+            client = hop;
+            if (!trustedProxies.contains(hop)) {
+                break;
+            }
+        }
+        return client;
+    }
+
+}
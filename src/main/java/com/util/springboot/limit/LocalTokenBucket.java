@@ -0,0 +1,44 @@
+package com.util.springboot.limit;
+
+/**
+ * @description 本节点内的令牌桶, 与 redis 中的桶使用相同的容量和速率, 用于在访问 redis 前预先拒绝;
+ * 也可单独用于本节点内的限速
+ */
+public class LocalTokenBucket {
+
+    private final long capacity;
+
+    private final double permitsPerMillis;
+
+    private double tokens;
+
+    private long lastRefill;
+
+    public LocalTokenBucket(long capacity, double permitsPerSecond) {
+        this.capacity = capacity;
+        this.permitsPerMillis = permitsPerSecond / 1000;
+        this.tokens = capacity;
+        this.lastRefill = System.currentTimeMillis();
+    }
+
+    public synchronized boolean tryAcquire(int permits) {
+        long now = System.currentTimeMillis();
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerMillis);
+            lastRefill = now;
+        }
+        if (tokens < permits) {
+            return false;
+        }
+        tokens -= permits;
+        return true;
+    }
+
+    /**
+     * 归还已取得的令牌, 用于本地放行但 redis 拒绝的请求, 保持本地桶不少于 redis 中的桶
+     */
+    public synchronized void refund(int permits) {
+        tokens = Math.min(capacity, tokens + permits);
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.util.springboot.limit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * @description 接口限流, 基于 redis 令牌桶, 集群内所有节点共享同一个桶;
+ * 容量和速率可在 rate-limit.* 中按 name 覆盖, 超出限制时返回 {@link com.util.springboot.enums.PublicEnums#TOO_MANY_REQUESTS}
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RateLimit {
+
+    /**
+     * 限流名称, 同时作为配置和统计的 key; 为空时使用 类名.方法名
+     */
+    String name() default "";
+
+    /**
+     * 桶容量, 即允许的突发请求数
+     */
+    long capacity() default 10;
+
+    /**
+     * 每秒补充的令牌数, 即长期平均允许的请求速率
+     */
+    double permitsPerSecond() default 1;
+
+    /**
+     * 按什么区分客户端, 每个客户端一个桶
+     */
+    ClientKey by() default ClientKey.IP;
+
+    enum ClientKey {
+
+        /** 所有客户端共享一个桶, 即接口整体限流 */
+        GLOBAL,
+
+        /** 按客户端 IP, 只有请求来自 rate-limit.trusted-proxies 时才采用 X-Forwarded-For */
+        IP,
+
+        /** 按登录用户, 未登录时退化为按 IP */
+        USER
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.util.springboot.limit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.util.springboot.cache.redis.RedisUtil;
+import com.util.springboot.enums.PublicEnums;
+import com.util.springboot.global.exception.utils.ExceptionUtils;
+import com.util.springboot.global.session.SessionUtils;
+import com.util.springboot.model.User;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @description {@link RateLimit} 的实现: 先查本地令牌桶, 通过后再用 redis 令牌桶做集群级别的限流;
+ * 拒绝次数按限流名称统计并定期输出
+ */
+@Aspect
+@Component
+public class RateLimitAspect {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitAspect.class);
+
+    private static final String KEY_PREFIX = "rate:";
+
+    @Autowired
+    private RedisUtil redisUtil;
+
+    @Autowired
+    private RateLimitSettings settings;
+
+    private final Map<String, RateLimitStats> stats = new ConcurrentHashMap<>();
+
+    private Cache<String, LocalTokenBucket> localBuckets;
+
+    private ClientAddressResolver clientAddressResolver;
+
+    @PostConstruct
+    public void init() {
+        clientAddressResolver = new ClientAddressResolver(settings.getTrustedProxies());
+        localBuckets = Caffeine.newBuilder()
+                .maximumSize(settings.getLocalMaxClients())
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build();
+    }
+
+    @Around("@annotation(rateLimit)")
+    public Object around(ProceedingJoinPoint joinPoint, RateLimit rateLimit) throws Throwable {
+        if (!settings.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        String name = nameOf(joinPoint, rateLimit);
+        long capacity = settings.capacityOf(name, rateLimit.capacity());
+        double permitsPerSecond = settings.permitsPerSecondOf(name, rateLimit.permitsPerSecond());
+        String key = KEY_PREFIX + name + ":" + clientOf(rateLimit.by());
+        RateLimitStats limitStats = stats.computeIfAbsent(name, n -> new RateLimitStats());
+
+        LocalTokenBucket bucket = null;
+        if (settings.isLocalCheck()) {
+            bucket = localBuckets.get(key, k -> new LocalTokenBucket(capacity, permitsPerSecond));
+            if (!bucket.tryAcquire(1)) {
+                limitStats.recordRejectedLocal();
+                reject(name, key);
+            }
+        }
+        boolean allowed;
+        try {
+            allowed = redisUtil.tryAcquire(key, capacity, permitsPerSecond, 1);
+        } catch (RuntimeException e) {
+            limitStats.recordRedisError();
+            log.warn("ZGH20410: rate limit [{}] redis check failed, failOpen = {}", name, settings.isFailOpen(), e);
+            allowed = settings.isFailOpen();
+        }
+        if (!allowed) {
+            if (bucket != null) {
+                // 请求未被放行, 本地桶不应为它扣减令牌
+                bucket.refund(1);
+            }
+            limitStats.recordRejectedRedis();
+            reject(name, key);
+        }
+        limitStats.recordAllowed();
+        return joinPoint.proceed();
+    }
+
+    public Map<String, RateLimitStats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    @Scheduled(fixedDelayString = "${rate-limit.stats-log-interval:300000}")
+    public void logStats() {
+        stats.forEach((name, limitStats) -> log.info("ZGH20420: rate limit [{}] {}", name, limitStats));
+    }
+
+    private void reject(String name, String key) {
+        log.debug("ZGH20430: rate limit [{}] rejected {}", name, key);
+        ExceptionUtils.throwResponseException(PublicEnums.TOO_MANY_REQUESTS);
+    }
+
+    private static String nameOf(ProceedingJoinPoint joinPoint, RateLimit rateLimit) {
+        if (!rateLimit.name().isEmpty()) {
+            return rateLimit.name();
+        }
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        return signature.getDeclaringType().getSimpleName() + "." + signature.getName();
+    }
+
+    private String clientOf(RateLimit.ClientKey by) {
+        if (by == RateLimit.ClientKey.GLOBAL) {
+            return "*";
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return "*";
+        }
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        if (by == RateLimit.ClientKey.USER && request.getSession(false) != null) {
+            User user = (User) SessionUtils.getAttribute(request, "user");
+            if (user != null && user.getId() != null) {
+                return "u" + user.getId();
+            }
+        }
+        return clientAddressResolver.resolve(request);
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.util.springboot.limit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @description 限流配置, 以 rate-limit.* 前缀配置; 按 {@link RateLimit#name()} 覆盖注解上的容量和速率
+ */
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitSettings {
+
+    /** 总开关, 关闭后所有 @RateLimit 不生效 */
+    private boolean enabled = true;
+
+    /**
+     * 是否先在本节点做一次同样参数的令牌桶检查; 单个节点的请求数不会超过集群总数,
+     * 本地桶为空时 redis 中的桶必然也为空, 可直接拒绝而不访问 redis
+     */
+    private boolean localCheck = true;
+
+    /** redis 不可用时是否放行(仍受本地检查限制), 否则直接拒绝 */
+    private boolean failOpen = true;
+
+    /** 本地桶最多保留的客户端数量, 超出后淘汰最久未访问的 */
+    private long localMaxClients = 100000;
+
+    /**
+     * 受信反向代理的地址, 逐个列出; 只有请求直接来自这些地址时才按 X-Forwarded-For 识别客户端,
+     * 为空时始终使用连接的对端地址
+     */
+    private List<String> trustedProxies = new ArrayList<>();
+
+    /** 按名称配置的桶容量 */
+    private Map<String, Long> capacity = new HashMap<>();
+
+    /** 按名称配置的每秒补充令牌数 */
+    private Map<String, Double> permitsPerSecond = new HashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isLocalCheck() {
+        return localCheck;
+    }
+
+    public void setLocalCheck(boolean localCheck) {
+        this.localCheck = localCheck;
+    }
+
+    public boolean isFailOpen() {
+        return failOpen;
+    }
+
+    public void setFailOpen(boolean failOpen) {
+        this.failOpen = failOpen;
+    }
+
+    public long getLocalMaxClients() {
+        return localMaxClients;
+    }
+
+    public void setLocalMaxClients(long localMaxClients) {
+        this.localMaxClients = localMaxClients;
+    }
+
+    public List<String> getTrustedProxies() {
+        return trustedProxies;
+    }
+
+    public void setTrustedProxies(List<String> trustedProxies) {
+        this.trustedProxies = trustedProxies;
+    }
+
+    public Map<String, Long> getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Map<String, Long> capacity) {
+        this.capacity = capacity;
+    }
+
+    public Map<String, Double> getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public void setPermitsPerSecond(Map<String, Double> permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public long capacityOf(String name, long defaultCapacity) {
+        Long value = capacity.get(name);
+        return value != null ? value : defaultCapacity;
+    }
+
+    public double permitsPerSecondOf(String name, double defaultPermitsPerSecond) {
+        Double value = permitsPerSecond.get(name);
+        return value != null ? value : defaultPermitsPerSecond;
+    }
+
+}
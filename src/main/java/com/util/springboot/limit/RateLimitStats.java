@@ -0,0 +1,56 @@
+package com.util.springboot.limit;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @description 单个限流名称下的放行/拒绝次数, 拒绝按本地检查和 redis 检查分别统计
+ */
+public class RateLimitStats {
+
+    private final LongAdder allowed = new LongAdder();
+
+    private final LongAdder rejectedLocal = new LongAdder();
+
+    private final LongAdder rejectedRedis = new LongAdder();
+
+    private final LongAdder redisErrors = new LongAdder();
+
+    void recordAllowed() {
+        allowed.increment();
+    }
+
+    void recordRejectedLocal() {
+        rejectedLocal.increment();
+    }
+
+    void recordRejectedRedis() {
+        rejectedRedis.increment();
+    }
+
+    void recordRedisError() {
+        redisErrors.increment();
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getRejectedLocal() {
+        return rejectedLocal.sum();
+    }
+
+    public long getRejectedRedis() {
+        return rejectedRedis.sum();
+    }
+
+    public long getRedisErrors() {
+        return redisErrors.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "allowed=" + getAllowed() + ", rejectedLocal=" + getRejectedLocal()
+                + ", rejectedRedis=" + getRejectedRedis() + ", redisErrors=" + getRedisErrors();
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.util.springboot.model;
+
+import java.util.List;
+
+/**
+ * @description 各 Example 中 Criteria 的公共视图, 供 SqlProvider 统一计算 sql 缓存的形状
+ */
+public interface ExampleCriteria {
+
+    boolean isValid();
+
+    List<? extends ExampleCriterion> getAllCriteria();
+
+}
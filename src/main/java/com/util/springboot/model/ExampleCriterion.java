@@ -0,0 +1,22 @@
+package com.util.springboot.model;
+
+/**
+ * @description 各 Example 中 Criterion 的公共视图, 供 SqlProvider 统一计算 sql 缓存的形状
+ */
+public interface ExampleCriterion {
+
+    String getCondition();
+
+    Object getValue();
+
+    boolean isNoValue();
+
+    boolean isSingleValue();
+
+    boolean isBetweenValue();
+
+    boolean isListValue();
+
+    String getTypeHandler();
+
+}
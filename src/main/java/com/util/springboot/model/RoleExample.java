@@ -1,6 +1,7 @@
 package com.util.springboot.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class RoleExample {
@@ -10,6 +11,8 @@ public class RoleExample {
 
     protected List<Criteria> oredCriteria;
 
+    protected List<Column> selectColumns;
+
     public RoleExample() {
         oredCriteria = new ArrayList<Criteria>();
     }
@@ -30,6 +33,22 @@ public class RoleExample {
         return distinct;
     }
 
+    public void setSelectColumns(List<Column> selectColumns) {
+        this.selectColumns = selectColumns;
+    }
+
+    public List<Column> getSelectColumns() {
+        return selectColumns;
+    }
+
+    /**
+     * 只查询指定的列, 未指定时查询全部列; 没有查询的列在结果对象中为 null
+     */
+    public RoleExample selectColumns(Column... columns) {
+        this.selectColumns = Arrays.asList(columns);
+        return this;
+    }
+
     public List<Criteria> getOredCriteria() {
         return oredCriteria;
     }
@@ -61,9 +80,29 @@ public class RoleExample {
         oredCriteria.clear();
         orderByClause = null;
         distinct = false;
+        selectColumns = null;
+    }
+
+    /**
+     * role 表的列, 通过 {@link #selectColumns} 指定 selectByExample 查询哪些列
+     */
+    public enum Column {
+        id("id"),
+        name("name"),
+        code("code");
+
+        private final String value;
+
+        Column(String value) {
+            this.value = value;
+        }
+
+        public String value() {
+            return value;
+        }
     }
 
-    protected abstract static class GeneratedCriteria {
+    protected abstract static class GeneratedCriteria implements ExampleCriteria {
         protected List<Criterion> criteria;
 
         protected GeneratedCriteria() {
@@ -312,7 +351,7 @@ public class RoleExample {
         }
     }
 
-    public static class Criterion {
+    public static class Criterion implements ExampleCriterion {
         private String condition;
 
         private Object value;
@@ -1,6 +1,7 @@
 package com.util.springboot.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -11,6 +12,12 @@ public class UserExample {
 
     protected List<Criteria> oredCriteria;
 
+    protected List<Column> selectColumns;
+
+    protected Integer offset;
+
+    protected Integer limit;
+
     public UserExample() {
         oredCriteria = new ArrayList<Criteria>();
     }
@@ -31,6 +38,38 @@ public class UserExample {
         return distinct;
     }
 
+    public void setOffset(Integer offset) {
+        this.offset = offset;
+    }
+
+    public Integer getOffset() {
+        return offset;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setSelectColumns(List<Column> selectColumns) {
+        this.selectColumns = selectColumns;
+    }
+
+    public List<Column> getSelectColumns() {
+        return selectColumns;
+    }
+
+    /**
+     * 只查询指定的列, 未指定时查询全部列; 没有查询的列在结果对象中为 null
+     */
+    public UserExample selectColumns(Column... columns) {
+        this.selectColumns = Arrays.asList(columns);
+        return this;
+    }
+
     public List<Criteria> getOredCriteria() {
         return oredCriteria;
     }
@@ -62,9 +101,34 @@ public class UserExample {
         oredCriteria.clear();
         orderByClause = null;
         distinct = false;
+        selectColumns = null;
+        offset = null;
+        limit = null;
+    }
+
+    /**
+     * user 表的列, 通过 {@link #selectColumns} 指定 selectByExample 查询哪些列
+     */
+    public enum Column {
+        id("id"),
+        userName("user_name"),
+        password("password"),
+        age("age"),
+        birthday("birthday"),
+        nikeName("nike_name");
+
+        private final String value;
+
+        Column(String value) {
+            this.value = value;
+        }
+
+        public String value() {
+            return value;
+        }
     }
 
-    protected abstract static class GeneratedCriteria {
+    protected abstract static class GeneratedCriteria implements ExampleCriteria {
         protected List<Criterion> criteria;
 
         protected GeneratedCriteria() {
@@ -503,7 +567,7 @@ public class UserExample {
         }
     }
 
-    public static class Criterion {
+    public static class Criterion implements ExampleCriterion {
         private String condition;
 
         private Object value;
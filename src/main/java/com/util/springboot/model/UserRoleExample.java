@@ -1,6 +1,7 @@
 package com.util.springboot.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class UserRoleExample {
@@ -10,6 +11,8 @@ public class UserRoleExample {
 
     protected List<Criteria> oredCriteria;
 
+    protected List<Column> selectColumns;
+
     public UserRoleExample() {
         oredCriteria = new ArrayList<Criteria>();
     }
@@ -30,6 +33,22 @@ public class UserRoleExample {
         return distinct;
     }
 
+    public void setSelectColumns(List<Column> selectColumns) {
+        this.selectColumns = selectColumns;
+    }
+
+    public List<Column> getSelectColumns() {
+        return selectColumns;
+    }
+
+    /**
+     * 只查询指定的列, 未指定时查询全部列; 没有查询的列在结果对象中为 null
+     */
+    public UserRoleExample selectColumns(Column... columns) {
+        this.selectColumns = Arrays.asList(columns);
+        return this;
+    }
+
     public List<Criteria> getOredCriteria() {
         return oredCriteria;
     }
@@ -61,9 +80,29 @@ public class UserRoleExample {
         oredCriteria.clear();
         orderByClause = null;
         distinct = false;
+        selectColumns = null;
+    }
+
+    /**
+     * user_role 表的列, 通过 {@link #selectColumns} 指定 selectByExample 查询哪些列
+     */
+    public enum Column {
+        id("id"),
+        userId("user_id"),
+        roleId("role_id");
+
+        private final String value;
+
+        Column(String value) {
+            this.value = value;
+        }
+
+        public String value() {
+            return value;
+        }
     }
 
-    protected abstract static class GeneratedCriteria {
+    protected abstract static class GeneratedCriteria implements ExampleCriteria {
         protected List<Criterion> criteria;
 
         protected GeneratedCriteria() {
@@ -292,7 +331,7 @@ public class UserRoleExample {
         }
     }
 
-    public static class Criterion {
+    public static class Criterion implements ExampleCriterion {
         private String condition;
 
         private Object value;
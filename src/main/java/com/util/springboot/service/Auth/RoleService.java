@@ -1,11 +1,21 @@
 package com.util.springboot.service.auth;
 
 import com.util.springboot.model.Role;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 
 public interface RoleService {
 
     List<Role> getUserRoles(Integer userId);
 
+    /**
+     * 批量查询多个用户的角色, 无论用户数多少都只查询一次 user_role 表
+     * @param userIds 用户id集合
+     * @return 用户id -> 角色列表, 没有角色的用户对应空列表
+     */
+    Map<Integer, List<Role>> getRolesForUsers(Collection<Integer> userIds);
+
 }
@@ -3,10 +3,16 @@ package com.util.springboot.service.auth;
 import com.util.springboot.model.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 
 public interface UserService {
 
+    /**
+     * 按用户名查询用户; 布隆过滤器判定不存在的用户名限速查询, 超出速率时抛出 TOO_MANY_REQUESTS
+     * @param userName 用户名
+     * @return 用户, 不存在时返回 null
+     */
     User findByUserName(String userName);
 
     /**
@@ -17,9 +23,40 @@ public interface UserService {
     void add(User user);
 
     /**
-     * 查询所有用户
+     * 批量添加用户, 按 chunk 拆成多行 insert, 在一个事务中完成; 返回后各 user 的 id 已回填
+     * @param users 用户列表
+     * @return 写入的行数
+     */
+    int addAll(List<User> users);
+
+    /**
+     * 分页查询用户, 按 id 升序, 分页在数据库端完成; 不查询 password
+     * @param offset 起始偏移量, 为空时从 0 开始
+     * @param limit 每页条数, 为空时使用默认页大小, 超过上限时截断
      * @return 返回用户列表
      */
     List<User> findAll(Integer offset, Integer limit);
 
+    /**
+     * 游标(keyset)分页查询用户: 返回 id 大于 afterId 的下一页,
+     * 深分页时不需要扫描并丢弃 offset 之前的行; 不查询 password
+     * @param afterId 上一页最后一条记录的 id, 为空时从第一页开始
+     * @param limit 每页条数, 为空时使用默认页大小, 超过上限时截断
+     * @return 返回用户列表
+     */
+    List<User> findAfter(Integer afterId, Integer limit);
+
+    /**
+     * 按 id 升序流式读取全部用户, 每读到一行回调一次, 不在内存中保留整张表;
+     * 回调在读取结果集的过程中同步执行, 其中不要再访问数据库; 不查询 password
+     * @param consumer 逐行处理用户
+     */
+    void forEachUser(Consumer<User> consumer);
+
+    /**
+     * 查询用户总数, 只在调用方需要总数时调用
+     * @return 用户总数
+     */
+    long count();
+
 }
@@ -1,16 +1,20 @@
-package com.luckyhua.springboot.service.auth.impl;
-
-import com.luckyhua.springboot.dao.mapper.RoleMapper;
-import com.luckyhua.springboot.dao.mapper.UserRoleMapper;
-import com.luckyhua.springboot.model.Role;
-import com.luckyhua.springboot.model.UserRole;
-import com.luckyhua.springboot.model.UserRoleExample;
-import com.luckyhua.springboot.service.auth.RoleService;
+package com.util.springboot.service.auth.impl;
+
+import com.util.springboot.cache.local.RoleCatalogCache;
+import com.util.springboot.dao.mapper.UserRoleMapper;
+import com.util.springboot.model.Role;
+import com.util.springboot.model.UserRole;
+import com.util.springboot.model.UserRoleExample;
+import com.util.springboot.service.auth.RoleService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -25,15 +29,39 @@ public class RoleServiceImpl implements RoleService {
     private UserRoleMapper userRoleMapper;
 
     @Autowired
-    private RoleMapper roleMapper;
+    private RoleCatalogCache roleCatalogCache;
 
     @Override
     public List<Role> getUserRoles(Integer userId) {
         UserRoleExample userRoleExample = new UserRoleExample();
+        userRoleExample.selectColumns(UserRoleExample.Column.userId, UserRoleExample.Column.roleId);
         userRoleExample.createCriteria().andUserIdEqualTo(userId);
         List<UserRole> userRoles = userRoleMapper.selectByExample(userRoleExample);
-        Set<Integer> roleIdsSet = userRoles.stream().map(UserRole::getRoleId).collect(Collectors.toSet());
-        return roleIdsSet.stream().map(id -> roleMapper.selectByPrimaryKey(id)).collect(Collectors.toList());
+        List<Integer> roleIds = userRoles.stream().map(UserRole::getRoleId).distinct().collect(Collectors.toList());
+        return roleCatalogCache.getByIds(roleIds);
+    }
+
+    @Override
+    public Map<Integer, List<Role>> getRolesForUsers(Collection<Integer> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Integer> distinctUserIds = userIds.stream().distinct().collect(Collectors.toList());
+        UserRoleExample userRoleExample = new UserRoleExample();
+        userRoleExample.selectColumns(UserRoleExample.Column.userId, UserRoleExample.Column.roleId);
+        userRoleExample.createCriteria().andUserIdIn(distinctUserIds);
+        List<UserRole> userRoles = userRoleMapper.selectByExample(userRoleExample);
+
+        Map<Integer, List<Role>> result = new LinkedHashMap<>();
+        distinctUserIds.forEach(userId -> result.put(userId, new ArrayList<>()));
+        for (UserRole userRole : userRoles) {
+            Role role = roleCatalogCache.getById(userRole.getRoleId());
+            List<Role> roles = result.get(userRole.getUserId());
+            if (role != null && !roles.contains(role)) {
+                roles.add(role);
+            }
+        }
+        return result;
     }
 
 }
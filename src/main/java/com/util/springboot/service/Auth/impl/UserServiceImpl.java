@@ -1,15 +1,25 @@
-package com.luckyhua.springboot.service.auth.impl;
+package com.util.springboot.service.auth.impl;
 
-import com.luckyhua.springboot.dao.mapper.UserMapper;
-import com.luckyhua.springboot.model.User;
-import com.luckyhua.springboot.model.UserExample;
-import com.luckyhua.springboot.service.auth.UserService;
+import com.util.springboot.cache.local.UserNameFilter;
+import com.util.springboot.common.utils.AssertUtils;
+import com.util.springboot.dao.mapper.UserMapper;
+import com.util.springboot.enums.PublicEnums;
+import com.util.springboot.global.exception.utils.ExceptionUtils;
+import com.util.springboot.model.User;
+import com.util.springboot.model.UserExample;
+import com.util.springboot.service.auth.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * @author luckyhua
@@ -20,25 +30,107 @@ import java.util.List;
 public class UserServiceImpl implements UserService {
 
     private static final Logger log = LoggerFactory.getLogger(UserServiceImpl.class);
+
+    /** 默认每页条数 */
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    /** 单页最大条数, 防止一次拉取整张表 */
+    private static final int MAX_PAGE_SIZE = 500;
+
+    /** 列表与导出查询的列, 不查 password */
+    private static final UserExample.Column[] LIST_COLUMNS = {UserExample.Column.id, UserExample.Column.userName,
+            UserExample.Column.age, UserExample.Column.birthday, UserExample.Column.nikeName};
+
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private UserNameFilter userNameFilter;
+
+    /** 批量写入时每条 insert 的行数, 同时受 mysql max_allowed_packet 限制 */
+    @Value("${user.batch-insert.chunk-size:500}")
+    private int batchChunkSize;
+
     @Override
     public User findByUserName(String userName) {
-        UserExample userExample = new UserExample();
-        userExample.createCriteria().andUserNameEqualTo(userName);
-        List<User> userList = userMapper.selectByExample(userExample);
-        return userList != null && userList.size() > 0 ? userList.get(0) : null;
+        if (userName == null) {
+            return null;
+        }
+        // 过滤器判定不存在的用户名限速后仍查库, 超出速率时拒绝请求, 不把可能存在的用户当作不存在
+        AssertUtils.isTrue(PublicEnums.TOO_MANY_REQUESTS, userNameFilter.tryAdmit(userName));
+        User user = userMapper.selectByUserName(userName);
+        if (user != null) {
+            userNameFilter.found(userName);
+        }
+        return user;
     }
 
     public void add(User user) {
         log.info("ZGH10020: add user ...");
-        userMapper.insertSelective(user);
+        try {
+            userMapper.insertSelective(user);
+        } catch (DuplicateKeyException e) {
+            log.info("ZGH10021: user name exists, userName = {}", user.getUserName());
+            ExceptionUtils.throwResponseException(PublicEnums.USER_NAME_EXISTS);
+        }
+        userNameFilter.add(Collections.singletonList(user.getUserName()));
+    }
+
+    @Transactional
+    public int addAll(List<User> users) {
+        if (users == null || users.isEmpty()) {
+            return 0;
+        }
+        log.info("ZGH10030: add users in batch, size = {}", users.size());
+        int rows = 0;
+        try {
+            for (int from = 0; from < users.size(); from += batchChunkSize) {
+                rows += userMapper.insertBatch(users.subList(from, Math.min(from + batchChunkSize, users.size())));
+            }
+        } catch (DuplicateKeyException e) {
+            // 抛出的业务异常是运行时异常, 已写入的分段随事务回滚
+            log.info("ZGH10031: user name exists in batch, size = {}", users.size());
+            ExceptionUtils.throwResponseException(PublicEnums.USER_NAME_EXISTS);
+        }
+        userNameFilter.add(users.stream().map(User::getUserName).collect(Collectors.toList()));
+        return rows;
     }
 
     public List<User> findAll(Integer offset, Integer limit) {
         UserExample userExample = new UserExample();
-//        userExample.set
+        userExample.selectColumns(LIST_COLUMNS);
+        userExample.setOrderByClause("id asc");
+        userExample.setOffset(offset == null || offset < 0 ? 0 : offset);
+        userExample.setLimit(pageSize(limit));
         return userMapper.selectByExample(userExample);
     }
+
+    public List<User> findAfter(Integer afterId, Integer limit) {
+        UserExample userExample = new UserExample();
+        if (afterId != null) {
+            userExample.createCriteria().andIdGreaterThan(afterId);
+        }
+        userExample.selectColumns(LIST_COLUMNS);
+        userExample.setOrderByClause("id asc");
+        userExample.setLimit(pageSize(limit));
+        return userMapper.selectByExample(userExample);
+    }
+
+    public void forEachUser(Consumer<User> consumer) {
+        UserExample userExample = new UserExample();
+        userExample.selectColumns(LIST_COLUMNS);
+        userExample.setOrderByClause("id asc");
+        userMapper.streamByExample(userExample, context -> consumer.accept(context.getResultObject()));
+    }
+
+    public long count() {
+        return userMapper.countByExample(new UserExample());
+    }
+
+    private static int pageSize(Integer limit) {
+        if (limit == null || limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
 }
@@ -0,0 +1,7 @@
+-- 登录按 user_name 查询用户, 为其加唯一索引; 同时保证同一用户名只能注册一次.
+-- 默认排序规则不区分大小写, 'Alice' 与 'alice' 视为同一用户名.
+-- 执行前先清理重复数据, 有重复时 alter 会失败:
+--   select user_name, count(*) from user group by user_name having count(*) > 1;
+-- 回滚: alter table user drop index uk_user_name;
+
+alter table user add unique index uk_user_name (user_name);
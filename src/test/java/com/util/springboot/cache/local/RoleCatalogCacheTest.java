@@ -0,0 +1,68 @@
+package com.util.springboot.cache.local;
+
+import com.util.springboot.dao.mapper.RoleMapper;
+import com.util.springboot.model.Role;
+import com.util.springboot.model.RoleExample;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @description RoleCatalogCache 的加载与失效
+ */
+public class RoleCatalogCacheTest {
+
+    private RoleMapper roleMapper;
+
+    private RoleCatalogCache cache;
+
+    @Before
+    public void setUp() {
+        roleMapper = mock(RoleMapper.class);
+        cache = new RoleCatalogCache();
+        ReflectionTestUtils.setField(cache, "roleMapper", roleMapper);
+    }
+
+    @Test
+    public void loadsOnceAndServesFromSnapshot() {
+        when(roleMapper.selectByExample(any(RoleExample.class))).thenReturn(Collections.singletonList(role(1, "admin")));
+
+        assertThat(cache.getById(1).getCode()).isEqualTo("admin");
+        assertThat(cache.getByCode("admin").getId()).isEqualTo(1);
+        assertThat(cache.getById(2)).isNull();
+        verify(roleMapper, times(1)).selectByExample(any(RoleExample.class));
+    }
+
+    @Test
+    public void invalidationDuringLoadIsNotLost() {
+        when(roleMapper.selectByExample(any(RoleExample.class)))
+                .thenAnswer(invocation -> {
+                    // 读到旧数据之后、发布快照之前收到失效
+                    cache.invalidateLocal();
+                    return Collections.singletonList(role(1, "old"));
+                })
+                .thenReturn(Collections.singletonList(role(1, "new")));
+
+        assertThat(cache.getById(1).getCode()).isEqualTo("old");
+        assertThat(cache.getById(1).getCode()).isEqualTo("new");
+        assertThat(cache.getById(1).getCode()).isEqualTo("new");
+        verify(roleMapper, times(2)).selectByExample(any(RoleExample.class));
+    }
+
+    private static Role role(int id, String code) {
+        Role role = new Role();
+        role.setId(id);
+        role.setCode(code);
+        return role;
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.util.springboot.cache.local;
+
+import com.util.springboot.cache.redis.RedisUtil;
+import com.util.springboot.dao.mapper.UserMapper;
+import com.util.springboot.limit.RateLimitSettings;
+import com.util.springboot.model.User;
+import com.util.springboot.model.UserExample;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @description UserNameFilter 只对判定不存在的用户名限速, 不把存在的用户名当作不存在
+ */
+public class UserNameFilterTest {
+
+    private UserMapper userMapper;
+
+    private UserNameFilter filter;
+
+    @Before
+    public void setUp() {
+        userMapper = mock(UserMapper.class);
+        filter = new UserNameFilter();
+        ReflectionTestUtils.setField(filter, "userMapper", userMapper);
+        ReflectionTestUtils.setField(filter, "redisUtil", mock(RedisUtil.class));
+        ReflectionTestUtils.setField(filter, "redisMessageListenerContainer", mock(RedisMessageListenerContainer.class));
+        ReflectionTestUtils.setField(filter, "rateLimitSettings", new RateLimitSettings());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "minExpectedInsertions", 1000L);
+        ReflectionTestUtils.setField(filter, "fpp", 0.0001);
+        // 只允许 2 次突发, 补充速率低到测试期间不会补充
+        ReflectionTestUtils.setField(filter, "missCapacity", 2L);
+        ReflectionTestUtils.setField(filter, "missPermitsPerSecond", 0.001);
+        ReflectionTestUtils.setField(filter, "missMaxClients", 1000L);
+        filter.init();
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void admitsEverythingBeforeFirstBuild() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(filter.tryAdmit("nobody" + i)).isTrue();
+        }
+    }
+
+    @Test
+    public void admitsKnownNamesAndThrottlesUnknownOnes() {
+        rebuildWith("alice", "bob");
+
+        assertThat(filter.tryAdmit("alice")).isTrue();
+        // 与 mysql 排序规则一致: 不区分大小写, 忽略尾部空格
+        assertThat(filter.tryAdmit("ALICE  ")).isTrue();
+        for (int i = 0; i < 10; i++) {
+            assertThat(filter.tryAdmit("bob")).isTrue();
+        }
+        assertThat(filter.tryAdmit("mallory")).isTrue();
+        assertThat(filter.tryAdmit("trudy")).isTrue();
+        assertThat(filter.tryAdmit("eve")).isFalse();
+    }
+
+    @Test
+    public void nameMissedByFilterIsLearnedOnceFound() {
+        rebuildWith("alice");
+
+        // 例如广播丢失的新用户: 仍然按速率放行查库, 查到后补入过滤器
+        assertThat(filter.tryAdmit("carol")).isTrue();
+        filter.found("carol");
+        assertThat(filter.tryAdmit("mallory")).isTrue();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(filter.tryAdmit("carol")).isTrue();
+        }
+    }
+
+    @Test
+    public void unknownNamesAreThrottledPerClient() {
+        rebuildWith("alice");
+
+        requestFrom("10.0.0.1");
+        for (int i = 0; i < 2; i++) {
+            assertThat(filter.tryAdmit("nobody" + i)).isTrue();
+        }
+        assertThat(filter.tryAdmit("nobody")).isFalse();
+
+        // 其他客户端不受影响, 包括过滤器还没学到的真实用户
+        requestFrom("10.0.0.2");
+        assertThat(filter.tryAdmit("carol")).isTrue();
+        assertThat(filter.tryAdmit("alice")).isTrue();
+    }
+
+    @Test
+    public void broadcastNamesAreAdmitted() {
+        rebuildWith("alice");
+        filter.add(Collections.singletonList("dave"));
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(filter.tryAdmit("dave")).isTrue();
+        }
+    }
+
+    @Test
+    public void disabledFilterAdmitsEverything() {
+        ReflectionTestUtils.setField(filter, "enabled", false);
+        rebuildWith("alice");
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(filter.tryAdmit("nobody" + i)).isTrue();
+        }
+    }
+
+    private static void requestFrom(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(remoteAddr);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void rebuildWith(String... userNames) {
+        List<String> names = Arrays.asList(userNames);
+        when(userMapper.countByExample(any(UserExample.class))).thenReturn((long) names.size());
+        doAnswer(invocation -> {
+            ResultHandler<User> handler = (ResultHandler<User>) invocation.getArguments()[1];
+            for (String name : names) {
+                User user = new User();
+                user.setUserName(name);
+                ResultContext<User> context = mock(ResultContext.class);
+                when(context.getResultObject()).thenReturn(user);
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(userMapper).streamByExample(any(UserExample.class), any(ResultHandler.class));
+        filter.rebuild();
+    }
+
+}
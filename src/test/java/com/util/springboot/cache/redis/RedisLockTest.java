@@ -0,0 +1,86 @@
+package com.util.springboot.cache.redis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @description RedisLock 加锁脚本的 key 与参数, redis 连接用 mock 代替
+ */
+public class RedisLockTest {
+
+    private RedisConnection connection;
+
+    private RedisLock redisLock;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        connection = mock(RedisConnection.class);
+        RedisTemplate redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArguments()[0]).doInRedis(connection));
+        redisLock = new RedisLock();
+        ReflectionTestUtils.setField(redisLock, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(redisLock, "defaultLeaseMillis", 30000L);
+        ReflectionTestUtils.setField(redisLock, "fenceTtlMillis", 604800000L);
+    }
+
+    @After
+    public void tearDown() {
+        redisLock.destroy();
+    }
+
+    @Test
+    public void acquireExpiresFenceCounterAndSeedsItFromClock() {
+        when(connection.evalSha(anyString(), eq(ReturnType.INTEGER), eq(2), (byte[][]) anyVararg())).thenReturn(42L);
+        when(connection.evalSha(anyString(), eq(ReturnType.INTEGER), eq(1), (byte[][]) anyVararg())).thenReturn(1L);
+        long before = System.currentTimeMillis() * 1000;
+
+        try (RedisLock.Lease lease = redisLock.tryLock("job")) {
+            assertThat(lease).isNotNull();
+            assertThat(lease.getFencingToken()).isEqualTo(42L);
+        }
+
+        ArgumentCaptor<byte[]> keysAndArgs = ArgumentCaptor.forClass(byte[].class);
+        verify(connection).evalSha(anyString(), eq(ReturnType.INTEGER), eq(2), keysAndArgs.capture());
+        List<byte[]> raw = keysAndArgs.getAllValues();
+        // 锁 key 与计数器在同一个 slot
+        assertThat(string(raw.get(0))).isEqualTo("lock:{job}");
+        assertThat(string(raw.get(1))).isEqualTo("lock:{job}:fence");
+        assertThat(Long.parseLong(string(raw.get(4)))).isBetween(before, System.currentTimeMillis() * 1000);
+        assertThat(string(raw.get(5))).isEqualTo("604800000");
+        verify(connection, atLeastOnce()).evalSha(anyString(), eq(ReturnType.INTEGER), eq(1), (byte[][]) anyVararg());
+    }
+
+    @Test
+    public void busyLockReturnsNullWithoutWaiting() {
+        when(connection.evalSha(anyString(), eq(ReturnType.INTEGER), eq(2), (byte[][]) anyVararg())).thenReturn(-1000L);
+
+        assertThat(redisLock.tryLock("job")).isNull();
+    }
+
+    private static String string(byte[] raw) {
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,92 @@
+package com.util.springboot.cache.redis;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @description 主从模式下默认的读方法走主节点, 只有 *FromReplica 方法读从节点
+ */
+public class RedisUtilReplicaReadTest {
+
+    private RedisTemplate master;
+
+    private ValueOperations masterValues;
+
+    private RedisTemplate replica;
+
+    private ValueOperations replicaValues;
+
+    private RedisUtil redisUtil;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        master = mock(RedisTemplate.class);
+        masterValues = mock(ValueOperations.class);
+        when(master.opsForValue()).thenReturn(masterValues);
+        when(master.getKeySerializer()).thenReturn(new StringRedisSerializer());
+        replica = mock(RedisTemplate.class);
+        replicaValues = mock(ValueOperations.class);
+        when(replica.opsForValue()).thenReturn(replicaValues);
+        ReplicaReadTemplates replicas = mock(ReplicaReadTemplates.class);
+        when(replicas.next()).thenReturn(replica);
+
+        redisUtil = new RedisUtil();
+        ReflectionTestUtils.setField(redisUtil, "redisTemplate", master);
+        ReflectionTestUtils.setField(redisUtil, "replicaReadTemplates", replicas);
+        ReflectionTestUtils.setField(redisUtil, "pipelineBatchSize", 1000);
+        ReflectionTestUtils.setField(redisUtil, "mode", RedisCacheConfig.MODE_MASTER_REPLICA);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void defaultReadsUseMaster() {
+        when(masterValues.get("k")).thenReturn("v");
+        when(master.hasKey("k")).thenReturn(true);
+        when(masterValues.multiGet(anyCollectionOf(Object.class))).thenReturn(Arrays.asList("v", null));
+        when(master.executePipelined(any(RedisCallback.class))).thenReturn(Collections.singletonList(true));
+
+        // 写入主节点后立即读取, 不受从节点复制延迟影响
+        assertThat(redisUtil.get("k")).isEqualTo("v");
+        assertThat(redisUtil.exists("k")).isTrue();
+        assertThat(redisUtil.multiGet(Arrays.asList("k", "missing"))).containsExactly("v", null);
+        assertThat(redisUtil.multiExists(Collections.singletonList("k"))).containsEntry("k", true);
+
+        verify(replica, never()).opsForValue();
+        verify(replica, never()).hasKey(any());
+        verify(replica, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void replicaReadsUseReplica() {
+        when(replicaValues.get("k")).thenReturn("stale");
+        when(replica.hasKey("k")).thenReturn(false);
+        List<Object> values = Collections.singletonList("stale");
+        when(replicaValues.multiGet(anyCollectionOf(Object.class))).thenReturn(values);
+
+        assertThat(redisUtil.getFromReplica("k")).isEqualTo("stale");
+        assertThat(redisUtil.existsFromReplica("k")).isFalse();
+        assertThat(redisUtil.multiGetFromReplica(Collections.singletonList("k"))).containsExactly("stale");
+
+        verify(master, never()).opsForValue();
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.util.springboot.cache.redis;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @description RedisUtil 删除时 UNLINK 到 DEL 的退化
+ */
+public class RedisUtilTest {
+
+    private static final List<byte[]> KEYS = Collections.singletonList("a".getBytes(StandardCharsets.UTF_8));
+
+    private RedisConnection connection;
+
+    private RedisUtil redisUtil;
+
+    @Before
+    public void setUp() {
+        connection = mock(RedisConnection.class);
+        redisUtil = new RedisUtil();
+    }
+
+    @Test
+    public void unknownCommandFallsBackToDel() {
+        when(connection.evalSha(anyString(), eq(ReturnType.INTEGER), anyInt(), (byte[][]) anyVararg()))
+                .thenThrow(new InvalidDataAccessApiUsageException(
+                        "ERR Error running script: @user_script:1: Unknown Redis command called from Lua script"));
+        when(connection.del((byte[][]) anyVararg())).thenReturn(1L);
+
+        assertThat(unlink()).isEqualTo(1L);
+        assertThat(ReflectionTestUtils.getField(redisUtil, "unlinkSupported")).isEqualTo(false);
+    }
+
+    @Test
+    public void connectionErrorDoesNotDisableUnlink() {
+        when(connection.evalSha(anyString(), eq(ReturnType.INTEGER), anyInt(), (byte[][]) anyVararg()))
+                .thenThrow(new RedisConnectionFailureException("Could not get a resource from the pool"));
+
+        try {
+            unlink();
+            fail("connection error should be rethrown");
+        } catch (RedisConnectionFailureException expected) {
+            // 预期抛出
+        }
+        verify(connection, never()).del((byte[][]) anyVararg());
+        assertThat(ReflectionTestUtils.getField(redisUtil, "unlinkSupported")).isEqualTo(true);
+    }
+
+    @Test
+    public void recognisesUnknownCommandReplies() {
+        assertThat(RedisUtil.isUnknownCommand(new RuntimeException("ERR unknown command 'unlink'"))).isTrue();
+        assertThat(RedisUtil.isUnknownCommand(new RuntimeException("wrapped",
+                new RuntimeException("Unknown Redis command called from Lua script")))).isTrue();
+        assertThat(RedisUtil.isUnknownCommand(new RuntimeException("READONLY You can't write against a read only replica")))
+                .isFalse();
+        assertThat(RedisUtil.isUnknownCommand(new RuntimeException())).isFalse();
+    }
+
+    private long unlink() {
+        Long deleted = ReflectionTestUtils.invokeMethod(redisUtil, "unlink", connection, KEYS);
+        return deleted;
+    }
+
+}
@@ -0,0 +1,106 @@
+package com.util.springboot.cache.support;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @description BoundedRedisCache 的淘汰与索引维护, redis 连接用 mock 代替
+ */
+public class BoundedRedisCacheTest {
+
+    private static final byte[] INDEX_KEY = bytes("users~index");
+
+    private static final byte[] KNOWN_KEYS_KEY = bytes("users~keys");
+
+    private RedisConnection connection;
+
+    private BoundedRedisCache cache;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        connection = mock(RedisConnection.class);
+        RedisOperations redisOperations = mock(RedisOperations.class);
+        when(redisOperations.getKeySerializer()).thenReturn(new StringRedisSerializer());
+        when(redisOperations.getValueSerializer()).thenReturn(new StringRedisSerializer());
+        when(redisOperations.execute(any(RedisCallback.class)))
+                .thenAnswer(invocation -> ((RedisCallback<?>) invocation.getArguments()[0]).doInRedis(connection));
+        cache = new BoundedRedisCache("users", null, redisOperations, 60, 0, 2);
+    }
+
+    @Test
+    public void putDeletesVictimsOutsideTheScript() {
+        when(connection.evalSha(anyString(), eq(ReturnType.MULTI), eq(1), (byte[][]) anyVararg()))
+                .thenReturn(Arrays.asList(bytes("a"), bytes("b")));
+
+        cache.put("c", "value");
+
+        ArgumentCaptor<byte[]> scriptKeys = ArgumentCaptor.forClass(byte[].class);
+        verify(connection).evalSha(anyString(), eq(ReturnType.MULTI), eq(1), scriptKeys.capture());
+        // 脚本只声明索引 zset 一个 key
+        assertThat(scriptKeys.getAllValues().get(0)).isEqualTo(INDEX_KEY);
+        verify(connection).del(bytes("a"), bytes("b"));
+        verify(connection).zRem(KNOWN_KEYS_KEY, bytes("a"), bytes("b"));
+    }
+
+    @Test
+    public void putWithoutOverflowDeletesNothing() {
+        when(connection.evalSha(anyString(), eq(ReturnType.MULTI), eq(1), (byte[][]) anyVararg()))
+                .thenReturn(Collections.emptyList());
+
+        cache.put("c", "value");
+
+        verify(connection, never()).del((byte[][]) anyVararg());
+    }
+
+    @Test
+    public void evictRemovesKeyFromIndex() {
+        cache.evict("c");
+
+        verify(connection).del(bytes("c"));
+        verify(connection).zRem(INDEX_KEY, bytes("c"));
+    }
+
+    @Test
+    public void putNullEvictsInsteadOfIndexing() {
+        cache.put("c", null);
+
+        verify(connection).zRem(INDEX_KEY, bytes("c"));
+        verify(connection, never()).evalSha(anyString(), any(ReturnType.class), anyInt(), (byte[][]) anyVararg());
+    }
+
+    @Test
+    public void clearDropsIndex() {
+        when(connection.zRange(any(byte[].class), any(Long.class), any(Long.class))).thenReturn(Collections.emptySet());
+
+        cache.clear();
+
+        verify(connection).del(INDEX_KEY);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,215 @@
+package com.util.springboot.common.id;
+
+import com.util.springboot.cache.redis.RedisUtil;
+import com.util.springboot.common.utils.IdWorker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @description WorkerIdLease 的水位与租约失效, redis 用 mock 代替
+ */
+public class WorkerIdLeaseTest {
+
+    private static final long TTL_MILLIS = 30000L;
+
+    private static final long MAX_BACKWARD_MILLIS = 1000L;
+
+    private static final long MAX_CLOCK_SKEW_MILLIS = 500L;
+
+    private final MutableClock clock = new MutableClock(1500000000000L);
+
+    private RedisUtil redisUtil;
+
+    private WorkerIdLease lease;
+
+    @Before
+    public void setUp() {
+        redisUtil = mock(RedisUtil.class);
+        when(redisUtil.setIfAbsent(anyString(), any(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+        lease = new WorkerIdLease(redisUtil, TTL_MILLIS / 1000, MAX_BACKWARD_MILLIS, MAX_CLOCK_SKEW_MILLIS, clock);
+    }
+
+    @After
+    public void tearDown() {
+        lease.destroy();
+    }
+
+    @Test
+    public void skipsSlotsWhoseWatermarkIsAhead() {
+        // 只有 7 号槽位的水位已被越过
+        when(redisUtil.updateMax(anyString(), eq(0L))).thenReturn(clock.millis() + 10000);
+        when(redisUtil.updateMax(eq("idworker:slot:7:issued"), eq(0L))).thenReturn(clock.millis() - MAX_CLOCK_SKEW_MILLIS - 1);
+
+        assertThat(lease.acquire()).isEqualTo(7);
+        assertThat(lease.getDatacenterId() << 5 | lease.getWorkerId()).isEqualTo(7);
+        verify(redisUtil, never()).compareAndDelete("idworker:slot:7", ReflectionTestUtils.getField(lease, "owner"));
+    }
+
+    @Test
+    public void waitsForPreviousHolderWhenEverySlotIsCooling() {
+        long now = clock.millis();
+        Map<String, Long> watermarks = new HashMap<>();
+        for (int slot = 0; slot < WorkerIdLease.SLOT_COUNT; slot++) {
+            watermarks.put("idworker:slot:" + slot + ":issued", now + 10000);
+        }
+        watermarks.put("idworker:slot:7:issued", now + 2000);
+        when(redisUtil.updateMax(anyString(), anyLong())).thenAnswer(invocation ->
+                watermarks.merge((String) invocation.getArguments()[0], (Long) invocation.getArguments()[1], Math::max));
+        List<Long> waits = new ArrayList<>();
+        lease.destroy();
+        lease = new WorkerIdLease(redisUtil, TTL_MILLIS / 1000, MAX_BACKWARD_MILLIS, MAX_CLOCK_SKEW_MILLIS, clock) {
+            @Override
+            protected void sleepUntil(long millis) {
+                waits.add(millis);
+                clock.advance(millis + 1 - clock.millis());
+            }
+        };
+
+        assertThat(lease.acquire()).isEqualTo(7);
+        // 只等上一个持有者的水位, 而不是本节点刚写入的续期截止时间
+        assertThat(waits).containsExactly(now + 2000 + MAX_CLOCK_SKEW_MILLIS);
+        assertThat(watermarks.get("idworker:slot:7:issued")).isEqualTo(now + TTL_MILLIS + MAX_BACKWARD_MILLIS);
+    }
+
+    @Test
+    public void raisesWatermarkBeforeIdWorkerMayUseTheLease() {
+        long now = clock.millis();
+        IdWorker idWorker = acquireAndBind();
+
+        verify(redisUtil).updateMax(anyString(), eq(now + TTL_MILLIS + MAX_BACKWARD_MILLIS));
+        assertThat(idWorker.getValidUntil()).isEqualTo(now + TTL_MILLIS);
+        assertThat(idWorker.nextId()).isPositive();
+    }
+
+    @Test
+    public void idWorkerStopsWhenLeaseIsNotRenewed() {
+        IdWorker idWorker = acquireAndBind();
+
+        clock.advance(TTL_MILLIS + 1);
+        assertRefuses(idWorker);
+    }
+
+    @Test
+    public void renewalExtendsIdWorker() {
+        IdWorker idWorker = acquireAndBind();
+        when(redisUtil.compareAndSet(anyString(), any(), any(), anyLong())).thenReturn(true);
+
+        clock.advance(TTL_MILLIS / 3);
+        ReflectionTestUtils.invokeMethod(lease, "renew");
+        clock.advance(TTL_MILLIS / 3 * 2 + 1);
+
+        assertThat(idWorker.nextId()).isPositive();
+    }
+
+    @Test
+    public void slotTakenByAnotherNodeStopsIdWorker() {
+        IdWorker idWorker = acquireAndBind();
+        when(redisUtil.compareAndSet(anyString(), any(), any(), anyLong())).thenReturn(false);
+        when(redisUtil.setIfAbsent(anyString(), any(), anyLong(), any(TimeUnit.class))).thenReturn(false);
+
+        ReflectionTestUtils.invokeMethod(lease, "renew");
+
+        assertRefuses(idWorker);
+    }
+
+    @Test
+    public void reacquiredSlotWaitsForWatermark() {
+        IdWorker idWorker = acquireAndBind();
+        clock.advance(TTL_MILLIS + 1);
+        // 过期期间其他节点用过该槽位并抬高了水位
+        long watermark = clock.millis() + 5000;
+        when(redisUtil.compareAndSet(anyString(), any(), any(), anyLong())).thenReturn(false);
+        when(redisUtil.updateMax(anyString(), eq(0L))).thenReturn(watermark);
+
+        ReflectionTestUtils.invokeMethod(lease, "renew");
+        assertRefuses(idWorker);
+
+        clock.advance(5000 + MAX_CLOCK_SKEW_MILLIS + 1);
+        when(redisUtil.compareAndSet(anyString(), any(), any(), anyLong())).thenReturn(true);
+        ReflectionTestUtils.invokeMethod(lease, "renew");
+        assertThat(idWorker.nextId()).isPositive();
+    }
+
+    @Test
+    public void destroyStopsIdWorker() {
+        IdWorker idWorker = acquireAndBind();
+
+        lease.destroy();
+
+        assertRefuses(idWorker);
+    }
+
+    private IdWorker acquireAndBind() {
+        lease.acquire();
+        IdWorker idWorker = new IdWorker(lease.getWorkerId(), lease.getDatacenterId(), clock, MAX_BACKWARD_MILLIS);
+        lease.bind(idWorker);
+        return idWorker;
+    }
+
+    private static void assertRefuses(IdWorker idWorker) {
+        try {
+            idWorker.nextId();
+            fail("id generation should be refused");
+        } catch (IllegalStateException expected) {
+            // 预期抛出
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile long millis;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+    }
+
+}
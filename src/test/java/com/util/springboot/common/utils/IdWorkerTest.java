@@ -0,0 +1,213 @@
+package com.util.springboot.common.utils;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * @description IdWorker 的唯一性、批量预留、时钟回拨处理与租约截止时间
+ */
+public class IdWorkerTest {
+
+    private static final long TWEPOCH = 1288834974657L;
+
+    private static final long NOW = 1480000000000L;
+
+    @Test
+    public void concurrentIdsAreUnique() throws Exception {
+        IdWorker worker = new IdWorker(1, 1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(pool.submit((Callable<long[]>) () -> {
+                    long[] ids = new long[50000];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = worker.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            Set<Long> seen = new HashSet<>(200000);
+            for (Future<long[]> future : futures) {
+                long previous = Long.MIN_VALUE;
+                for (long id : future.get()) {
+                    // 同一线程内单调递增
+                    assertThat(id).isGreaterThan(previous);
+                    assertThat(seen.add(id)).isTrue();
+                    previous = id;
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void idCarriesNode() {
+        long id = new IdWorker(3, 7).nextId();
+
+        assertThat((id >>> 17) & 31).isEqualTo(7L);
+        assertThat((id >>> 12) & 31).isEqualTo(3L);
+    }
+
+    @Test
+    public void nextIdsAreUniqueAndIncreasingAcrossMillis() {
+        IdWorker worker = new IdWorker(1, 1);
+        long single = worker.nextId();
+
+        // 超过单毫秒 4096 个序列号, 分多次预留
+        long[] ids = worker.nextIds(10000);
+
+        Set<Long> seen = new HashSet<>();
+        long previous = single;
+        for (long id : ids) {
+            assertThat(id).isGreaterThan(previous);
+            assertThat(seen.add(id)).isTrue();
+            previous = id;
+        }
+        assertThat(worker.nextId()).isGreaterThan(previous);
+    }
+
+    @Test
+    public void nextIdsRejectsNonPositiveCount() {
+        try {
+            new IdWorker(1, 1).nextIds(0);
+            fail("count 0 should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // 预期抛出
+        }
+    }
+
+    @Test
+    public void nextIdsBorrowsNextMillisWhenSequenceRunsOut() {
+        MutableClock clock = new MutableClock(NOW);
+        IdWorker worker = new IdWorker(1, 1, clock, IdWorker.DEFAULT_MAX_BACKWARD_MILLIS);
+
+        long[] ids = worker.nextIds(10000);
+
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < ids.length; i++) {
+            assertThat(seen.add(ids[i])).isTrue();
+            if (i > 0) {
+                assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+            }
+        }
+        // 时钟未动, 每毫秒 4096 个, 借用了两个未来毫秒
+        assertThat((ids[ids.length - 1] >>> 22) + TWEPOCH).isEqualTo(NOW + 2);
+        assertThat(worker.getBackwardCount()).isGreaterThan(0L);
+    }
+
+    @Test
+    public void rollbackWithinToleranceStaysMonotonic() {
+        MutableClock clock = new MutableClock(NOW);
+        IdWorker worker = new IdWorker(1, 1, clock, 1000L);
+        long before = worker.nextId();
+
+        clock.advance(-500);
+        long after = worker.nextId();
+
+        assertThat(after).isGreaterThan(before);
+        assertThat((after >>> 22) + TWEPOCH).isEqualTo(NOW);
+    }
+
+    @Test
+    public void rollbackBeyondToleranceIsRejected() {
+        MutableClock clock = new MutableClock(NOW);
+        IdWorker worker = new IdWorker(1, 1, clock, 1000L);
+        worker.nextId();
+
+        clock.advance(-1500);
+        try {
+            worker.nextId();
+            fail("rollback beyond tolerance should be rejected");
+        } catch (IllegalStateException e) {
+            fail("rollback should not be reported as lease loss");
+        } catch (RuntimeException expected) {
+            assertThat(expected.getMessage()).contains("Clock moved backwards");
+        }
+
+        clock.advance(1500);
+        assertThat(worker.nextId()).isPositive();
+    }
+
+    @Test
+    public void zeroToleranceRejectsAnyRollback() {
+        MutableClock clock = new MutableClock(NOW);
+        IdWorker worker = new IdWorker(1, 1, clock, 0L);
+        worker.nextId();
+
+        clock.advance(-1);
+        try {
+            worker.nextId();
+            fail("rollback should be rejected");
+        } catch (RuntimeException expected) {
+            assertThat(expected.getMessage()).contains("Clock moved backwards");
+        }
+    }
+
+    @Test
+    public void refusesToGeneratePastValidUntil() {
+        MutableClock clock = new MutableClock(NOW);
+        IdWorker worker = new IdWorker(1, 1, clock, 0L);
+        worker.setValidUntil(NOW);
+        worker.nextId();
+
+        clock.advance(1);
+        try {
+            worker.nextId();
+            fail("id generation should stop once the lease is no longer valid");
+        } catch (IllegalStateException expected) {
+            // 预期抛出
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private volatile long millis;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+    }
+
+}
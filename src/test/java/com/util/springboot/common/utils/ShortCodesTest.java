@@ -0,0 +1,82 @@
+package com.util.springboot.common.utils;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * @description ShortCodes 编码定长、可还原、不重复
+ */
+public class ShortCodesTest {
+
+    private static final long[] EDGES = {0L, 1L, -1L, Long.MAX_VALUE, Long.MIN_VALUE, 1288834974657L << 22};
+
+    @Test
+    public void roundTripsEdgeAndRandomIds() {
+        Random random = new Random(42);
+        for (ShortCodes codes : new ShortCodes[]{ShortCodes.BASE32, ShortCodes.BASE62}) {
+            for (long id : EDGES) {
+                assertRoundTrip(codes, id);
+            }
+            for (int i = 0; i < 100000; i++) {
+                assertRoundTrip(codes, random.nextLong());
+            }
+        }
+    }
+
+    @Test
+    public void consecutiveIdsGiveDistinctCodes() {
+        Set<String> seen = new HashSet<>();
+        for (long id = 0; id < 100000; id++) {
+            assertThat(seen.add(ShortCodes.BASE62.encode(id))).isTrue();
+        }
+    }
+
+    @Test
+    public void encodesIntoCallerArray() {
+        char[] dst = new char[2 + ShortCodes.BASE62.width()];
+        dst[0] = '[';
+        dst[1] = '[';
+        ShortCodes.BASE62.encode(123456789L, dst, 2);
+
+        assertThat(new String(dst, 2, ShortCodes.BASE62.width())).isEqualTo(ShortCodes.BASE62.encode(123456789L));
+        assertThat(dst[1]).isEqualTo('[');
+    }
+
+    @Test
+    public void base32DecodesCaseInsensitively() {
+        String code = ShortCodes.BASE32.encode(987654321L);
+
+        assertThat(ShortCodes.BASE32.decode(code.toLowerCase())).isEqualTo(987654321L);
+    }
+
+    @Test
+    public void rejectsMalformedCodes() {
+        assertIllegal(ShortCodes.BASE62, "short");
+        assertIllegal(ShortCodes.BASE62, "0000000000-");
+        // Crockford base32 不含 U
+        assertIllegal(ShortCodes.BASE32, "000000000000U");
+        assertIllegal(ShortCodes.BASE62, "0000000000中");
+    }
+
+    private static void assertRoundTrip(ShortCodes codes, long id) {
+        String code = codes.encode(id);
+        assertThat(code).hasSize(codes.width());
+        assertThat(codes.decode(code)).isEqualTo(id);
+    }
+
+    private static void assertIllegal(ShortCodes codes, String code) {
+        try {
+            codes.decode(code);
+            fail("should reject " + code);
+        } catch (IllegalArgumentException expected) {
+            // 预期抛出
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.util.springboot.dao.mapper;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * @description mapper 测试用的 mysql 模式 H2 内存库;
+ * mysql 驱动用 fetchSize=Integer.MIN_VALUE 表示流式读取, H2 不接受负数, 这里忽略负的 fetchSize
+ */
+final class H2Mappers {
+
+    private H2Mappers() {
+    }
+
+    /**
+     * 新建一个内存库并建好 user、role、user_role 表
+     *
+     * @param name 库名, 每个测试类使用不同的库
+     * @return 注册了全部 mapper 的 SqlSessionFactory
+     */
+    static SqlSessionFactory create(String name) throws SQLException {
+        UnpooledDataSource h2 = new UnpooledDataSource("org.h2.Driver",
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1", "sa", "");
+        DataSource dataSource = proxy(DataSource.class, h2);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+            statement.execute("create table user (id int auto_increment primary key, "
+                    + "user_name varchar(64), password varchar(64), age int, birthday timestamp, nike_name varchar(64))");
+            statement.execute("create table role (id int auto_increment primary key, name varchar(64), code varchar(64))");
+            statement.execute("create table user_role (id int auto_increment primary key, user_id int, role_id int)");
+        }
+        Configuration configuration = new Configuration(new Environment(name, new JdbcTransactionFactory(), dataSource));
+        configuration.addMapper(UserMapper.class);
+        configuration.addMapper(RoleMapper.class);
+        configuration.addMapper(UserRoleMapper.class);
+        return new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    /**
+     * 代理 DataSource -> Connection -> Statement, 对 Statement 忽略负的 setFetchSize
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().equals("setFetchSize") && (Integer) args[0] < 0) {
+                return null;
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Connection && method.getReturnType() == Connection.class) {
+                return proxy(Connection.class, (Connection) result);
+            }
+            if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return proxy((Class<Statement>) method.getReturnType(), (Statement) result);
+            }
+            return result;
+        };
+        return (T) Proxy.newProxyInstance(H2Mappers.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.util.springboot.dao.mapper;
+
+import com.util.springboot.model.Role;
+import com.util.springboot.model.RoleExample;
+import com.util.springboot.model.UserExample;
+import com.util.springboot.model.UserRole;
+import com.util.springboot.model.UserRoleExample;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @description example 指定查询列与 distinct 时各 SqlProvider 输出的 select 子句, 以及在 H2 上的投影查询
+ */
+public class ProjectionSqlTest {
+
+    @Test
+    public void userSelectsOnlyRequestedColumns() {
+        String sql = select(new UserSqlProvider().selectByExample(
+                new UserExample().selectColumns(UserExample.Column.id, UserExample.Column.userName)));
+
+        assertThat(sql).startsWith("SELECT id, user_name FROM user");
+        assertThat(select(new UserSqlProvider().selectByExample(new UserExample())))
+                .startsWith("SELECT id, user_name, password, age, birthday, nike_name FROM user");
+    }
+
+    @Test
+    public void distinctAppliesToProjection() {
+        RoleExample roleExample = new RoleExample().selectColumns(RoleExample.Column.code);
+        roleExample.setDistinct(true);
+        UserRoleExample userRoleExample = new UserRoleExample().selectColumns(UserRoleExample.Column.roleId);
+        userRoleExample.setDistinct(true);
+
+        assertThat(select(new RoleSqlProvider().selectByExample(roleExample))).startsWith("SELECT DISTINCT code FROM role");
+        assertThat(select(new UserRoleSqlProvider().selectByExample(userRoleExample)))
+                .startsWith("SELECT DISTINCT role_id FROM user_role");
+    }
+
+    @Test
+    public void projectedRowsLeaveOtherPropertiesNull() throws Exception {
+        try (SqlSession session = H2Mappers.create("projection").openSession(true)) {
+            RoleMapper roleMapper = session.getMapper(RoleMapper.class);
+            UserRoleMapper userRoleMapper = session.getMapper(UserRoleMapper.class);
+            roleMapper.insertSelective(role("admin"));
+            roleMapper.insertSelective(role("guest"));
+            userRoleMapper.insertSelective(userRole(1, 1));
+            userRoleMapper.insertSelective(userRole(2, 1));
+
+            RoleExample roleExample = new RoleExample().selectColumns(RoleExample.Column.code);
+            roleExample.setOrderByClause("code");
+            List<Role> roles = roleMapper.selectByExample(roleExample);
+            UserRoleExample userRoleExample = new UserRoleExample().selectColumns(UserRoleExample.Column.roleId);
+            userRoleExample.setDistinct(true);
+            List<UserRole> userRoles = userRoleMapper.selectByExample(userRoleExample);
+
+            assertThat(roles).extracting(Role::getCode).containsExactly("admin", "guest");
+            assertThat(roles).extracting(Role::getId).containsOnly((Integer) null);
+            assertThat(userRoles).extracting(UserRole::getRoleId).containsExactly(1);
+        }
+    }
+
+    private static String select(String sql) {
+        return sql.replaceAll("\\s+", " ");
+    }
+
+    private static Role role(String code) {
+        Role role = new Role();
+        role.setName(code);
+        role.setCode(code);
+        return role;
+    }
+
+    private static UserRole userRole(int userId, int roleId) {
+        UserRole userRole = new UserRole();
+        userRole.setUserId(userId);
+        userRole.setRoleId(roleId);
+        return userRole;
+    }
+
+}
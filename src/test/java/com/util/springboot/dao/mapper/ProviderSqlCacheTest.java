@@ -0,0 +1,94 @@
+package com.util.springboot.dao.mapper;
+
+import com.util.springboot.model.RoleExample;
+import com.util.springboot.model.UserExample;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @description ProviderSqlCache 的形状只与 example 结构有关, 与参数值无关
+ */
+public class ProviderSqlCacheTest {
+
+    private final UserSqlProvider userSqlProvider = new UserSqlProvider();
+
+    private final RoleSqlProvider roleSqlProvider = new RoleSqlProvider();
+
+    @Test
+    public void sameStructureWithDifferentValuesSharesShape() {
+        UserExample first = new UserExample();
+        first.createCriteria().andUserNameEqualTo("a").andAgeBetween(1, 2);
+        UserExample second = new UserExample();
+        second.createCriteria().andUserNameEqualTo("b").andAgeBetween(3, 4);
+
+        assertThat(shape(first)).isEqualTo(shape(second));
+    }
+
+    @Test
+    public void structureChangesShape() {
+        UserExample base = new UserExample();
+        base.createCriteria().andIdIn(Arrays.asList(1, 2));
+
+        UserExample longerList = new UserExample();
+        longerList.createCriteria().andIdIn(Arrays.asList(1, 2, 3));
+        UserExample distinct = new UserExample();
+        distinct.createCriteria().andIdIn(Arrays.asList(1, 2));
+        distinct.setDistinct(true);
+        UserExample ordered = new UserExample();
+        ordered.createCriteria().andIdIn(Arrays.asList(1, 2));
+        ordered.setOrderByClause("id desc");
+        UserExample paged = new UserExample();
+        paged.createCriteria().andIdIn(Arrays.asList(1, 2));
+        paged.setLimit(10);
+        UserExample projected = new UserExample().selectColumns(UserExample.Column.id);
+        projected.createCriteria().andIdIn(Arrays.asList(1, 2));
+        UserExample ored = new UserExample();
+        ored.createCriteria().andIdIn(Arrays.asList(1, 2));
+        ored.or().andIdIsNull();
+
+        for (UserExample other : Arrays.asList(longerList, distinct, ordered, paged, projected, ored)) {
+            assertThat(shape(other)).isNotEqualTo(shape(base));
+        }
+    }
+
+    @Test
+    public void orderByIsDelimitedByLength() {
+        UserExample first = new UserExample();
+        first.setOrderByClause("id");
+        first.createCriteria().andIdIsNull();
+        UserExample second = new UserExample();
+        second.setOrderByClause("id|-(id is null;)");
+
+        assertThat(shape(first)).isNotEqualTo(shape(second));
+    }
+
+    @Test
+    public void providersShareTheSameShapeFormat() {
+        UserExample user = new UserExample();
+        user.createCriteria().andIdEqualTo(1);
+        RoleExample role = new RoleExample();
+        role.createCriteria().andIdEqualTo(1);
+
+        assertThat(roleSqlProvider.shapeOf("countByExample", role).toString())
+                .isEqualTo(userSqlProvider.shapeOf("countByExample", user).toString());
+        assertThat(userSqlProvider.shapeOf("countByExample", null).toString()).isEqualTo("countByExample");
+    }
+
+    @Test
+    public void cachedSqlIsReusedForSameShape() {
+        UserExample first = new UserExample();
+        first.createCriteria().andUserNameEqualTo("a");
+        UserExample second = new UserExample();
+        second.createCriteria().andUserNameEqualTo("b");
+
+        assertThat(userSqlProvider.selectByExample(second)).isSameAs(userSqlProvider.selectByExample(first));
+    }
+
+    private String shape(UserExample example) {
+        return userSqlProvider.shapeOf("selectByExample", example).toString();
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.util.springboot.dao.mapper;
+
+import com.util.springboot.model.User;
+import com.util.springboot.model.UserExample;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @description UserMapper.insertBatch 多行 insert: sql 按行数生成并缓存, 自增 id 回填
+ */
+public class UserMapperInsertBatchTest {
+
+    private SqlSession session;
+
+    private UserMapper userMapper;
+
+    @Before
+    public void setUp() throws Exception {
+        session = H2Mappers.create("insertBatch").openSession(true);
+        userMapper = session.getMapper(UserMapper.class);
+    }
+
+    @After
+    public void tearDown() {
+        session.close();
+    }
+
+    @Test
+    public void sqlHasOneValuesTuplePerRow() {
+        UserSqlProvider provider = new UserSqlProvider();
+
+        String sql = provider.insertBatch(Collections.singletonMap("list", Arrays.asList(new User(), new User())));
+
+        assertThat(sql).startsWith("insert into user (user_name, password, age, birthday, nike_name) values (");
+        assertThat(sql).contains("#{list[0].userName,jdbcType=VARCHAR}", "#{list[1].nikeName,jdbcType=VARCHAR}");
+        assertThat(sql).doesNotContain("list[2]");
+        // 行数相同的批次复用同一条 sql
+        assertThat(provider.insertBatch(Collections.singletonMap("list", Arrays.asList(new User(), new User()))))
+                .isSameAs(sql);
+    }
+
+    @Test
+    public void insertsAllRowsAndBackfillsIds() {
+        List<User> users = Arrays.asList(user("alice"), user("bob"), user("carol"));
+
+        assertThat(userMapper.insertBatch(users)).isEqualTo(3);
+
+        assertThat(users).extracting(User::getId).doesNotContainNull().doesNotHaveDuplicates();
+        for (User user : users) {
+            assertThat(userMapper.selectByPrimaryKey(user.getId()).getUserName()).isEqualTo(user.getUserName());
+        }
+        assertThat(userMapper.countByExample(new UserExample())).isEqualTo(3L);
+    }
+
+    @Test
+    public void nullFieldsAreWrittenAsNull() {
+        User user = user("dave");
+
+        userMapper.insertBatch(Collections.singletonList(user));
+
+        User stored = userMapper.selectByPrimaryKey(user.getId());
+        assertThat(stored.getAge()).isNull();
+        assertThat(stored.getNikeName()).isNull();
+    }
+
+    private static User user(String userName) {
+        User user = new User();
+        user.setUserName(userName);
+        return user;
+    }
+
+}
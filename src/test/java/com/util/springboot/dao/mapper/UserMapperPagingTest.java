@@ -0,0 +1,90 @@
+package com.util.springboot.dao.mapper;
+
+import com.util.springboot.model.User;
+import com.util.springboot.model.UserExample;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @description UserExample 的 offset/limit 分页: 生成的 sql 与在 H2 上的执行结果
+ */
+public class UserMapperPagingTest {
+
+    private SqlSession session;
+
+    private UserMapper userMapper;
+
+    @Before
+    public void setUp() throws Exception {
+        session = H2Mappers.create("paging").openSession(true);
+        userMapper = session.getMapper(UserMapper.class);
+        for (int i = 1; i <= 10; i++) {
+            User user = new User();
+            user.setUserName("user" + i);
+            user.setAge(i);
+            userMapper.insertSelective(user);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        session.close();
+    }
+
+    @Test
+    public void limitIsRenderedAsPlaceholders() {
+        UserSqlProvider provider = new UserSqlProvider();
+        UserExample example = new UserExample();
+
+        assertThat(provider.selectByExample(example)).doesNotContain("limit");
+
+        example.setLimit(5);
+        assertThat(provider.selectByExample(example)).endsWith(" limit #{limit,jdbcType=INTEGER}");
+
+        example.setOffset(20);
+        assertThat(provider.selectByExample(example))
+                .endsWith(" limit #{offset,jdbcType=INTEGER}, #{limit,jdbcType=INTEGER}")
+                .doesNotContain("20");
+    }
+
+    @Test
+    public void offsetAndLimitSelectOnePage() {
+        UserExample example = new UserExample();
+        example.setOrderByClause("id");
+        example.setOffset(3);
+        example.setLimit(4);
+
+        assertThat(userMapper.selectByExample(example)).extracting(User::getAge).containsExactly(4, 5, 6, 7);
+
+        example.setOffset(null);
+        assertThat(userMapper.selectByExample(example)).extracting(User::getAge).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    public void keysetPagingWalksAllRows() {
+        List<Integer> ages = new ArrayList<>();
+        Integer lastId = 0;
+        while (true) {
+            UserExample example = new UserExample();
+            example.createCriteria().andIdGreaterThan(lastId);
+            example.setOrderByClause("id");
+            example.setLimit(3);
+            List<User> page = userMapper.selectByExample(example);
+            if (page.isEmpty()) {
+                break;
+            }
+            page.forEach(user -> ages.add(user.getAge()));
+            lastId = page.get(page.size() - 1).getId();
+        }
+
+        assertThat(ages).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    }
+
+}
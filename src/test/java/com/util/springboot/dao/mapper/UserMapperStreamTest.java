@@ -0,0 +1,85 @@
+package com.util.springboot.dao.mapper;
+
+import com.util.springboot.model.User;
+import com.util.springboot.model.UserExample;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @description UserMapper.streamByExample 在 H2 上逐行读取
+ */
+public class UserMapperStreamTest {
+
+    private SqlSession session;
+
+    private UserMapper userMapper;
+
+    @Before
+    public void setUp() throws Exception {
+        SqlSessionFactory sessionFactory = H2Mappers.create("stream");
+        session = sessionFactory.openSession(true);
+        userMapper = session.getMapper(UserMapper.class);
+        userMapper.insertBatch(Arrays.asList(user("alice", 20), user("bob", 30), user("carol", 40)));
+    }
+
+    @After
+    public void tearDown() {
+        session.close();
+    }
+
+    @Test
+    public void streamsEveryRowInOrder() {
+        UserExample example = new UserExample();
+        example.setOrderByClause("id desc");
+        List<User> rows = new ArrayList<>();
+
+        userMapper.streamByExample(example, context -> rows.add(context.getResultObject()));
+
+        assertThat(rows).extracting(User::getUserName).containsExactly("carol", "bob", "alice");
+        assertThat(rows).extracting(User::getAge).containsExactly(40, 30, 20);
+    }
+
+    @Test
+    public void streamsProjectedColumnsMatchingCriteria() {
+        UserExample example = new UserExample().selectColumns(UserExample.Column.id, UserExample.Column.userName);
+        example.createCriteria().andAgeGreaterThan(25);
+        example.setOrderByClause("id");
+        List<User> rows = new ArrayList<>();
+
+        userMapper.streamByExample(example, context -> rows.add(context.getResultObject()));
+
+        assertThat(rows).extracting(User::getUserName).containsExactly("bob", "carol");
+        assertThat(rows).extracting(User::getId).doesNotContainNull();
+        assertThat(rows).extracting(User::getAge).containsOnly((Integer) null);
+    }
+
+    @Test
+    public void handlerCanStopEarly() {
+        List<User> rows = new ArrayList<>();
+
+        userMapper.streamByExample(new UserExample(), context -> {
+            rows.add(context.getResultObject());
+            context.stop();
+        });
+
+        assertThat(rows).hasSize(1);
+    }
+
+    private static User user(String userName, int age) {
+        User user = new User();
+        user.setUserName(userName);
+        user.setPassword("secret");
+        user.setAge(age);
+        return user;
+    }
+
+}
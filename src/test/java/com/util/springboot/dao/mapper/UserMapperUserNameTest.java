@@ -0,0 +1,55 @@
+package com.util.springboot.dao.mapper;
+
+import com.util.springboot.model.User;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @description UserMapper.selectByUserName 在 H2 上按用户名查询单行
+ */
+public class UserMapperUserNameTest {
+
+    private SqlSession session;
+
+    private UserMapper userMapper;
+
+    @Before
+    public void setUp() throws Exception {
+        session = H2Mappers.create("username").openSession(true);
+        userMapper = session.getMapper(UserMapper.class);
+        userMapper.insertBatch(Arrays.asList(user("alice"), user("bob")));
+    }
+
+    @After
+    public void tearDown() {
+        session.close();
+    }
+
+    @Test
+    public void findsUserByName() {
+        User user = userMapper.selectByUserName("bob");
+
+        assertThat(user).isNotNull();
+        assertThat(user.getUserName()).isEqualTo("bob");
+        assertThat(user.getId()).isNotNull();
+    }
+
+    @Test
+    public void returnsNullForUnknownName() {
+        assertThat(userMapper.selectByUserName("mallory")).isNull();
+    }
+
+    private static User user(String userName) {
+        User user = new User();
+        user.setUserName(userName);
+        user.setPassword("secret");
+        return user;
+    }
+
+}
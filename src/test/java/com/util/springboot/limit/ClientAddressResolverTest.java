@@ -0,0 +1,42 @@
+package com.util.springboot.limit;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @description ClientAddressResolver 只在受信代理转发时采用 X-Forwarded-For
+ */
+public class ClientAddressResolverTest {
+
+    private final ClientAddressResolver resolver = new ClientAddressResolver(Arrays.asList("10.0.0.1", "10.0.0.2"));
+
+    @Test
+    public void ignoresForwardedForFromUntrustedPeer() {
+        assertThat(resolver.resolve("203.0.113.7", "1.1.1.1")).isEqualTo("203.0.113.7");
+    }
+
+    @Test
+    public void ignoresForwardedForWithoutTrustedProxies() {
+        ClientAddressResolver none = new ClientAddressResolver(Collections.emptyList());
+        assertThat(none.resolve("10.0.0.1", "1.1.1.1")).isEqualTo("10.0.0.1");
+    }
+
+    @Test
+    public void takesRightMostUntrustedHop() {
+        // 调用方伪造的 9.9.9.9 在最左侧, 代理追加的真实地址在其右侧
+        assertThat(resolver.resolve("10.0.0.1", "9.9.9.9, 198.51.100.4")).isEqualTo("198.51.100.4");
+        assertThat(resolver.resolve("10.0.0.1", "9.9.9.9, 198.51.100.4, 10.0.0.2")).isEqualTo("198.51.100.4");
+    }
+
+    @Test
+    public void fallsBackWhenEveryHopIsTrusted() {
+        assertThat(resolver.resolve("10.0.0.1", "10.0.0.2")).isEqualTo("10.0.0.2");
+        assertThat(resolver.resolve("10.0.0.1", " , ")).isEqualTo("10.0.0.1");
+        assertThat(resolver.resolve("10.0.0.1", null)).isEqualTo("10.0.0.1");
+    }
+
+}
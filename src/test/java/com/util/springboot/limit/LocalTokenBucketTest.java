@@ -0,0 +1,32 @@
+package com.util.springboot.limit;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @description LocalTokenBucket 的取令牌与归还
+ */
+public class LocalTokenBucketTest {
+
+    @Test
+    public void rejectsOnceCapacityIsUsed() {
+        LocalTokenBucket bucket = new LocalTokenBucket(2, 0.001);
+
+        assertThat(bucket.tryAcquire(1)).isTrue();
+        assertThat(bucket.tryAcquire(1)).isTrue();
+        assertThat(bucket.tryAcquire(1)).isFalse();
+    }
+
+    @Test
+    public void refundRestoresTokenButNotBeyondCapacity() {
+        LocalTokenBucket bucket = new LocalTokenBucket(1, 0.001);
+
+        assertThat(bucket.tryAcquire(1)).isTrue();
+        bucket.refund(1);
+        bucket.refund(1);
+        assertThat(bucket.tryAcquire(1)).isTrue();
+        assertThat(bucket.tryAcquire(1)).isFalse();
+    }
+
+}